@@ -0,0 +1,47 @@
+package com.fintech.benchmark;
+
+import com.fintech.PersonalFinanceApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+
+// Sobe a aplicação uma vez por fork, sem servidor web e sem log de SQL
+@State(Scope.Benchmark)
+public class ApplicationContextState {
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // Argumentos de linha de comando têm precedência sobre o application.yml
+        context = new SpringApplicationBuilder(PersonalFinanceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.fintech=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Instância real por trás do proxy, para chamar métodos visíveis só no pacote
+    public <T> T target(Class<T> type) {
+        return AopTestUtils.getUltimateTargetObject(context.getBean(type));
+    }
+}
@@ -0,0 +1,55 @@
+package com.fintech.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TransactionDTOSerializationBenchmark {
+
+    @Param({"50", "500"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<TransactionDTO> transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Mesma configuração padrão do ObjectMapper do Spring Boot (JavaTimeModule, datas ISO)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        transactions = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            transactions.add(new TransactionDTO((long) i, 1L, new BigDecimal("100.00").add(BigDecimal.valueOf(i)),
+                    Transaction.TransactionType.values()[i % Transaction.TransactionType.values().length],
+                    "Transação " + i, now.minusMinutes(i), null));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactions);
+    }
+}
@@ -0,0 +1,105 @@
+package com.fintech.repository;
+
+import com.fintech.benchmark.ApplicationContextState;
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Transaction;
+import com.fintech.service.AccountService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Leitura de 100 mil transações de uma conta: entidade + toDTO contra projeção JPQL direto no DTO.
+// Rodar com -prof gc (padrão do perfil) para comparar gc.alloc.rate.norm por operação
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class LargeAccount {
+
+        TransactionRepository transactionRepository;
+        EntityManager entityManager;
+        TransactionTemplate readOnlyTransaction;
+        Long accountId;
+
+        @Setup(Level.Trial)
+        public void setUp(ApplicationContextState application) {
+            transactionRepository = application.bean(TransactionRepository.class);
+            entityManager = application.bean(EntityManager.class);
+            readOnlyTransaction = new TransactionTemplate(application.bean(PlatformTransactionManager.class));
+            readOnlyTransaction.setReadOnly(true);
+
+            AccountDTO account = new AccountDTO();
+            account.setUserId(1L);
+            account.setBalance(BigDecimal.ZERO);
+            accountId = application.bean(AccountService.class).create(account).getId();
+
+            JdbcTemplate jdbcTemplate = application.bean(JdbcTemplate.class);
+            LocalDateTime start = LocalDateTime.now().minusDays(365);
+            List<Object[]> batch = new ArrayList<>(1_000);
+            for (int i = 0; i < ROWS; i++) {
+                batch.add(new Object[]{accountId, new BigDecimal("10.00"), Transaction.TransactionType.DEPOSIT.name(),
+                        "Carga " + i, Timestamp.valueOf(start.plusSeconds(i * 300L))});
+                if (batch.size() == 1_000) {
+                    insert(jdbcTemplate, batch);
+                    batch.clear();
+                }
+            }
+            insert(jdbcTemplate, batch);
+        }
+
+        private void insert(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+            jdbcTemplate.batchUpdate("insert into transactions " +
+                    "(id, account_id, amount, transaction_type, description, transaction_date) " +
+                    "values (next value for transactions_seq, ?, ?, ?, ?, ?)", batch);
+        }
+    }
+
+    // Caminho anterior: entidades gerenciadas, depois cópia campo a campo
+    @Benchmark
+    public List<TransactionDTO> entitiesThenMap(LargeAccount state) {
+        return state.readOnlyTransaction.execute(status -> {
+            List<Transaction> transactions = state.entityManager.createQuery(
+                            "select t from Transaction t where t.account.id = :accountId " +
+                            "order by t.transactionDate desc, t.id desc", Transaction.class)
+                    .setParameter("accountId", state.accountId)
+                    .getResultList();
+            List<TransactionDTO> result = new ArrayList<>(transactions.size());
+            for (Transaction transaction : transactions) {
+                result.add(new TransactionDTO(transaction.getId(), transaction.getAccount().getId(),
+                        transaction.getAmount(), transaction.getTransactionType(),
+                        transaction.getDescription(), transaction.getTransactionDate(), null));
+            }
+            return result;
+        });
+    }
+
+    @Benchmark
+    public List<TransactionDTO> projection(LargeAccount state) {
+        return state.readOnlyTransaction.execute(status ->
+                state.transactionRepository.findFirstPageByAccountId(state.accountId, Limit.of(ROWS)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.fintech.service;
+
+import com.fintech.benchmark.ApplicationContextState;
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.dto.UserDTO;
+import com.fintech.model.Account;
+import com.fintech.model.Transaction;
+import com.fintech.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Services {
+
+        TransactionService transactionService;
+        AccountService accountService;
+        UserService userService;
+
+        User user;
+        Account account;
+        Transaction transaction;
+
+        @Setup(Level.Trial)
+        public void setUp(ApplicationContextState application) {
+            transactionService = application.target(TransactionService.class);
+            accountService = application.target(AccountService.class);
+            userService = application.target(UserService.class);
+
+            user = new User();
+            user.setId(1L);
+            user.setName("João Silva");
+            user.setEmail("joao.silva@email.com");
+            user.setCpf("12345678901");
+            user.setCreatedAt(LocalDateTime.now());
+
+            account = new Account();
+            account.setId(1L);
+            account.setAccountNumber("00000001");
+            account.setUser(user);
+            account.setBalance(new BigDecimal("5000.00"));
+            account.setCreatedAt(LocalDateTime.now());
+
+            transaction = new Transaction();
+            transaction.setId(1L);
+            transaction.setAccount(account);
+            transaction.setAmount(new BigDecimal("100.00"));
+            transaction.setTransactionType(Transaction.TransactionType.DEPOSIT);
+            transaction.setDescription("Depósito");
+            transaction.setTransactionDate(LocalDateTime.now());
+        }
+    }
+
+    @Benchmark
+    public TransactionDTO transactionToDTO(Services state) {
+        return state.transactionService.toDTO(state.transaction);
+    }
+
+    @Benchmark
+    public AccountDTO accountToDTO(Services state) {
+        return state.accountService.toDTO(state.account);
+    }
+
+    @Benchmark
+    public UserDTO userToDTO(Services state) {
+        return state.userService.toDTO(state.user);
+    }
+
+    @Benchmark
+    public void validateEmailValid(Services state) {
+        state.userService.validateEmail("joao.silva@email.com");
+    }
+
+    // Inclui o custo de criar a exceção, que é o que acontece em produção com emails inválidos
+    @Benchmark
+    public void validateEmailInvalid(Services state, Blackhole blackhole) {
+        try {
+            state.userService.validateEmail("joao.silva@email");
+        } catch (RuntimeException e) {
+            blackhole.consume(e);
+        }
+    }
+}
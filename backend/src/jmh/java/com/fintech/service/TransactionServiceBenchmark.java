@@ -0,0 +1,48 @@
+package com.fintech.service;
+
+import com.fintech.benchmark.ApplicationContextState;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TransactionServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Deposits {
+
+        TransactionService transactionService;
+        TransactionDTO deposit;
+
+        @Setup(Level.Trial)
+        public void setUp(ApplicationContextState application) {
+            transactionService = application.bean(TransactionService.class);
+
+            deposit = new TransactionDTO();
+            deposit.setAccountId(1L);
+            deposit.setAmount(new BigDecimal("1.00"));
+            deposit.setTransactionType(Transaction.TransactionType.DEPOSIT);
+            deposit.setDescription("Benchmark");
+        }
+    }
+
+    // Caminho completo contra o H2: UPDATE de saldo, snapshot do dia e INSERT da transação
+    @Benchmark
+    public TransactionDTO createDeposit(Deposits state) {
+        return state.transactionService.create(state.deposit);
+    }
+}
@@ -0,0 +1,128 @@
+package com.fintech.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Carga em modelo fechado: cada cliente envia a próxima requisição assim que recebe a resposta.
+// Leituras paginadas do extrato (vão ao banco, sem cache) misturadas com depósitos nas contas 1 a 3.
+// Uso: LoadDriver <url> <clientes> <duração em segundos> <fração de escritas>
+public final class LoadDriver {
+
+    private static final long[] ACCOUNT_IDS = {1L, 2L, 3L};
+
+    public static void main(String[] args) throws Exception {
+        URI baseUri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        double writeRatio = args.length > 3 ? Double.parseDouble(args[3]) : 0.2;
+        // Primeiros 20% da duração aquecem o servidor e não entram nas estatísticas
+        long warmupNanos = Duration.ofSeconds(durationSeconds).toNanos() / 5;
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        System.out.printf("%d clientes, %d s, %.0f%% escritas contra %s%n",
+                clients, durationSeconds, writeRatio * 100, baseUri);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = start + Duration.ofSeconds(durationSeconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> samplesPerClient = new ArrayList<>(clients);
+        int[] sampleCounts = new int[clients];
+        CountDownLatch finished = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            long[] initial = new long[1024];
+            samplesPerClient.add(initial);
+            Thread thread = new Thread(() -> {
+                long[] samples = initial;
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        long accountId = ACCOUNT_IDS[random.nextInt(ACCOUNT_IDS.length)];
+                        HttpRequest request = random.nextDouble() < writeRatio
+                                ? deposit(baseUri, accountId)
+                                : statementPage(baseUri, accountId);
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        long latency = System.nanoTime() - now;
+                        if (now >= measureFrom) {
+                            if (count == samples.length) {
+                                samples = Arrays.copyOf(samples, count * 2);
+                            }
+                            samples[count++] = latency;
+                        }
+                    }
+                } finally {
+                    samplesPerClient.set(client, samples);
+                    sampleCounts[client] = count;
+                    finished.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        finished.await();
+
+        int total = Arrays.stream(sampleCounts).sum();
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(samplesPerClient.get(c), 0, latencies, offset, sampleCounts[c]);
+            offset += sampleCounts[c];
+        }
+        Arrays.sort(latencies);
+
+        double measuredSeconds = (end - measureFrom) / 1e9;
+        System.out.printf("requisições=%d vazão=%.0f req/s erros=%d%n", total, total / measuredSeconds, errors.get());
+        System.out.printf("latência ms: p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f máx=%.1f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), total > 0 ? latencies[total - 1] / 1e6 : 0.0);
+    }
+
+    static HttpRequest statementPage(URI baseUri, long accountId) {
+        return HttpRequest.newBuilder(baseUri.resolve("/api/transactions/account/" + accountId + "?limit=20"))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    static HttpRequest deposit(URI baseUri, long accountId) {
+        String body = "{\"accountId\":" + accountId
+                + ",\"amount\":1.00,\"transactionType\":\"DEPOSIT\",\"description\":\"Carga\"}";
+        return HttpRequest.newBuilder(baseUri.resolve("/api/transactions"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,304 @@
+package com.fintech.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.PersonalFinanceApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Carga em modelo aberto: as requisições saem em instantes fixos pela taxa alvo, sem esperar respostas,
+// e a latência conta a partir do instante previsto. Um servidor lento não reduz a carga nem esconde a fila
+// (coordinated omission), ao contrário do modelo fechado do LoadDriver.
+// "embedded" sobe a aplicação no perfil padrão (H2) numa porta livre; relatório em texto e em JSON.
+// Uso: OpenLoadDriver <url|embedded> <req/s> <duração em segundos> <mix> <relatório json> <rótulo>
+public final class OpenLoadDriver {
+
+    private static final long[] ACCOUNT_IDS = {1L, 2L, 3L};
+    private static final long[] USER_IDS = {1L, 2L};
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    // Acima disso o gerador descarta (e conta como erro) em vez de acumular conexões sem limite
+    private static final int MAX_IN_FLIGHT = 20_000;
+
+    enum Endpoint {
+        USER_GET("user-get"),
+        ACCOUNT_GET("account-get"),
+        TRANSACTIONS_PAGE("transactions-page"),
+        STATEMENT("statement"),
+        SUMMARY("summary"),
+        DEPOSIT("deposit"),
+        TRANSFER("transfer"),
+        USER_CREATE("user-create");
+
+        private final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+
+        static Endpoint of(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Endpoint desconhecido no mix: " + key);
+        }
+
+        HttpRequest request(URI baseUri, ThreadLocalRandom random, long sequence, long runId) {
+            long accountId = ACCOUNT_IDS[random.nextInt(ACCOUNT_IDS.length)];
+            long userId = USER_IDS[random.nextInt(USER_IDS.length)];
+            return switch (this) {
+                case USER_GET -> get(baseUri, "/api/users/" + userId);
+                case ACCOUNT_GET -> get(baseUri, "/api/accounts/" + accountId);
+                case TRANSACTIONS_PAGE -> LoadDriver.statementPage(baseUri, accountId);
+                case STATEMENT -> get(baseUri, "/api/accounts/" + accountId + "/statement?from="
+                        + LocalDate.now().minusDays(30) + "&to=" + LocalDate.now());
+                case SUMMARY -> get(baseUri, "/api/users/" + userId + "/summary");
+                case DEPOSIT -> LoadDriver.deposit(baseUri, accountId);
+                // Contas 1 e 2 são do mesmo usuário; centavos para o saldo não acabar durante a carga
+                case TRANSFER -> post(baseUri, "/api/transfers", random.nextBoolean()
+                        ? "{\"sourceAccountId\":1,\"destinationAccountId\":2,\"amount\":0.01}"
+                        : "{\"sourceAccountId\":2,\"destinationAccountId\":1,\"amount\":0.01}");
+                // E-mail e CPF únicos por execução, para repetir a carga contra o mesmo banco
+                case USER_CREATE -> post(baseUri, "/api/users", String.format(
+                        "{\"name\":\"Usuario Carga\",\"email\":\"carga%d.%d@email.com\",\"cpf\":\"%05d%06d\"}",
+                        runId, sequence, runId, sequence % 1_000_000));
+            };
+        }
+    }
+
+    private static final class EndpointStats {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private void record(long latencyNanos, boolean error) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            if (error) {
+                errors.increment();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "embedded";
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 500;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        Map<Endpoint, Integer> mix = parseMix(args.length > 3 ? args[3]
+                : "transactions-page=40,account-get=15,user-get=10,statement=5,summary=5,deposit=15,transfer=8,user-create=2");
+        File report = new File(args.length > 4 ? args[4] : "target/loadtest-report.json");
+        String label = args.length > 5 ? args[5] : "";
+
+        ConfigurableApplicationContext application = null;
+        URI baseUri;
+        if ("embedded".equals(target)) {
+            application = startEmbedded();
+            baseUri = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+        } else {
+            baseUri = URI.create(target);
+        }
+
+        try {
+            System.out.printf("Modelo aberto: %.0f req/s por %d s contra %s (mix %s)%n", rate, durationSeconds, baseUri, mix);
+            Map<Endpoint, EndpointStats> stats = run(baseUri, rate, durationSeconds, mix);
+            // Primeiros 20% da duração aquecem o servidor e não entram nas estatísticas, como no LoadDriver
+            double measuredSeconds = durationSeconds * 0.8;
+            Map<String, Object> summary = report(stats, measuredSeconds);
+            writeReport(report, label, baseUri, rate, durationSeconds, mix, summary);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static Map<Endpoint, EndpointStats> run(URI baseUri, double rate, int durationSeconds,
+                                                    Map<Endpoint, Integer> mix) throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        mix.keySet().forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+        Endpoint[] weighted = mix.entrySet().stream()
+                .flatMap(entry -> java.util.Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(Endpoint[]::new);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        long runId = System.currentTimeMillis() / 1000 % 100_000;
+        double intervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(durationSeconds).toNanos() / 5;
+        long end = start + Duration.ofSeconds(durationSeconds).toNanos();
+        long maxDispatchLag = 0;
+
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + (long) (sequence * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            maxDispatchLag = Math.max(maxDispatchLag, now - intended);
+
+            Endpoint endpoint = weighted[random.nextInt(weighted.length)];
+            EndpointStats endpointStats = stats.get(endpoint);
+            boolean measured = intended >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    endpointStats.dropped.increment();
+                }
+                continue;
+            }
+            httpClient.sendAsync(endpoint.request(baseUri, random, sequence, runId), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        inFlight.release();
+                        if (measured) {
+                            // Desde o instante previsto: espera na fila do gerador ou do servidor conta como latência
+                            endpointStats.record(System.nanoTime() - intended, failure != null || response.statusCode() >= 400);
+                        }
+                    });
+        }
+
+        if (!inFlight.tryAcquire(MAX_IN_FLIGHT, 2, TimeUnit.MINUTES)) {
+            System.out.println("Aviso: requisições ainda pendentes após 2 minutos");
+        }
+        System.out.printf("Atraso máximo do gerador em relação ao agendado: %.1f ms%n", maxDispatchLag / 1e6);
+        return stats;
+    }
+
+    private static Map<String, Object> report(Map<Endpoint, EndpointStats> stats, double measuredSeconds) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        long totalDropped = 0;
+
+        System.out.printf("%-18s %9s %9s %8s %7s %9s %9s %9s %9s%n",
+                "endpoint", "req", "req/s", "erros", "%erro", "p50 ms", "p99 ms", "p99.9 ms", "máx ms");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpointStats = entry.getValue();
+            long errors = endpointStats.errors.sum() + endpointStats.dropped.sum();
+            total.add(endpointStats.latencies);
+            totalErrors += errors;
+            totalDropped += endpointStats.dropped.sum();
+            endpoints.put(entry.getKey().key, line(entry.getKey().key, endpointStats.latencies, errors,
+                    endpointStats.dropped.sum(), measuredSeconds));
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        // Descartadas entram no total de requisições, como nas linhas por endpoint: senão o erro passa de 100%
+        summary.put("total", line("total", total, totalErrors, totalDropped, measuredSeconds));
+        summary.put("endpoints", endpoints);
+        return summary;
+    }
+
+    private static Map<String, Object> line(String name, Histogram latencies, long errors, long dropped,
+                                            double measuredSeconds) {
+        long requests = latencies.getTotalCount() + dropped;
+        double errorRate = requests == 0 ? 0 : errors * 100.0 / requests;
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("requests", requests);
+        // Vazão = respostas com sucesso por segundo; abaixo da taxa alvo quando o servidor satura
+        line.put("throughput", (requests - errors) / measuredSeconds);
+        line.put("errors", errors);
+        line.put("dropped", dropped);
+        line.put("errorRatePercent", errorRate);
+        line.put("p50Ms", millis(latencies.getValueAtPercentile(50)));
+        line.put("p99Ms", millis(latencies.getValueAtPercentile(99)));
+        line.put("p999Ms", millis(latencies.getValueAtPercentile(99.9)));
+        line.put("maxMs", millis(latencies.getMaxValue()));
+        System.out.printf("%-18s %9d %9.1f %8d %6.2f%% %9.1f %9.1f %9.1f %9.1f%n", name, requests,
+                (requests - errors) / measuredSeconds, errors, errorRate, line.get("p50Ms"), line.get("p99Ms"),
+                line.get("p999Ms"), line.get("maxMs"));
+        return line;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static void writeReport(File report, String label, URI baseUri, double rate, int durationSeconds,
+                                    Map<Endpoint, Integer> mix, Map<String, Object> summary) throws Exception {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("label", label);
+        document.put("timestamp", OffsetDateTime.now().toString());
+        document.put("target", baseUri.toString());
+        document.put("targetRate", rate);
+        document.put("durationSeconds", durationSeconds);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((endpoint, weight) -> weights.put(endpoint.key, weight));
+        document.put("mix", weights);
+        document.putAll(summary);
+        File parent = report.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(report, document);
+        System.out.println("Relatório: " + report.getPath());
+    }
+
+    // "transactions-page=40,deposit=20": pesos inteiros por endpoint
+    static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] keyAndWeight = part.trim().split("=");
+            int weight = Integer.parseInt(keyAndWeight[1].trim());
+            if (weight > 0) {
+                mix.put(Endpoint.of(keyAndWeight[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Mix vazio: " + spec);
+        }
+        return mix;
+    }
+
+    private static ConfigurableApplicationContext startEmbedded() {
+        // Argumentos de linha de comando têm precedência sobre o application.yml
+        return new SpringApplicationBuilder(PersonalFinanceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.fintech=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+    }
+
+    private static HttpRequest get(URI baseUri, String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest post(URI baseUri, String path, String body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.fintech.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Tempo até a primeira requisição: do início do processo até o primeiro 200 de GET /api/users, que passa
+// por controller, serviço e JPA. Compara o jar executável no perfil padrão (antes) com os passos do perfil
+// faststart: inicialização preguiçosa, contexto do AOT e arquivo CDS. Precisa de mvn -P fast-start package.
+// Uso: StartupBenchmark <diretório target> <finalName> <execuções por variante>
+public final class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private record Variant(String name, List<String> jvmArgs, String jar) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        File target = new File(args.length > 0 ? args[0] : "target");
+        String finalName = args.length > 1 ? args[1] : "personal-finance-api-1.0.0";
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        File fatJar = new File(target, finalName + ".jar");
+        File fastStart = new File(target, "fast-start");
+        File thinJar = new File(fastStart, finalName + "-fast.jar");
+        File archive = new File(fastStart, "app.jsa");
+        for (File required : List.of(fatJar, thinJar, archive)) {
+            if (!required.isFile()) {
+                throw new IllegalStateException("Arquivo não encontrado: " + required + " (rode mvn -P fast-start package)");
+            }
+        }
+
+        List<String> faststart = List.of("-Dspring.profiles.active=faststart");
+        List<String> aot = List.of("-Dspring.profiles.active=faststart", "-Dspring.aot.enabled=true");
+        List<Variant> variants = List.of(
+                new Variant("antes (jar executável, perfil padrão)", List.of(), fatJar.getPath()),
+                new Variant("faststart (preguiçoso, sem seed)", faststart, thinJar.getPath()),
+                new Variant("faststart + AOT", aot, thinJar.getPath()),
+                new Variant("faststart + AOT + CDS", concat(aot, "-XX:SharedArchiveFile=" + archive.getPath(),
+                        "-Xshare:auto"), thinJar.getPath()));
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+        System.out.printf("%-40s %8s %8s %8s%n", "variante", "mín ms", "med ms", "máx ms");
+        long baselineMedian = 0;
+        for (Variant variant : variants) {
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = timeToFirstRequest(httpClient, variant, new File(target, "startup-benchmark.log"));
+            }
+            Arrays.sort(millis);
+            long median = millis[runs / 2];
+            if (baselineMedian == 0) {
+                baselineMedian = median;
+            }
+            System.out.printf("%-40s %8d %8d %8d  (%.0f%% do antes)%n", variant.name(), millis[0], median,
+                    millis[runs - 1], 100.0 * median / baselineMedian);
+        }
+    }
+
+    private static long timeToFirstRequest(HttpClient httpClient, Variant variant, File log) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(variant.jvmArgs());
+        command.add("-jar");
+        command.add(variant.jar());
+        command.add("--server.port=" + port);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users?limit=1"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(variant.name() + " terminou com código " + process.exitValue()
+                            + " antes de responder; veja " + log);
+                }
+                try {
+                    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                    throw new IllegalStateException(variant.name() + " respondeu " + response.statusCode() + "; veja " + log);
+                } catch (ConnectException e) {
+                    Thread.sleep(5);
+                }
+            }
+            throw new IllegalStateException(variant.name() + " não respondeu em " + STARTUP_TIMEOUT + "; veja " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static List<String> concat(List<String> first, String... rest) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(List.of(rest));
+        return all;
+    }
+}
@@ -0,0 +1,31 @@
+package com.fintech.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ACCOUNTS = "accounts";
+    public static final String ACCOUNTS_BY_USER = "accountsByUser";
+    public static final String USERS = "users";
+
+    // Evicções feitas dentro de uma transação só acontecem após o commit. As leituras usam sync = true:
+    // uma carga por chave, e a evicção do Caffeine espera uma carga em andamento terminar e a descarta, então
+    // um valor lido antes do commit nunca sobrevive a ele. O cache é local a cada nó: uma alteração feita em
+    // outro nó só some daqui no TTL (expireAfterWrite, 30 s por padrão), que é o limite de atraso das leituras
+    // sem ETag. GET por id não depende dele, porque a chave leva a versão conferida para o ETag
+    @Bean
+    public CacheManager cacheManager(@Value("${fintech.cache.spec:maximumSize=10000,expireAfterWrite=30s,recordStats}") String spec) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager(ACCOUNTS, ACCOUNTS_BY_USER, USERS);
+        caffeineCacheManager.setCacheSpecification(spec);
+        caffeineCacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -6,14 +6,21 @@ import com.fintech.model.User;
 import com.fintech.repository.AccountRepository;
 import com.fintech.repository.TransactionRepository;
 import com.fintech.repository.UserRepository;
+import com.fintech.service.AccountNumberAllocator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
+// Dados fake numa única transação, com saveAll por entidade: as transações saem em INSERTs em lote
+// (sequence), usuários e contas (IDENTITY) ao menos sem um commit cada. O enabled é lido em tempo de
+// execução, não por @ConditionalOnProperty, para continuar valendo com o contexto pré-processado pelo AOT
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -22,78 +29,75 @@ public class DataLoader implements CommandLineRunner {
     private final UserRepository userRepository;
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${fintech.seed.enabled:true}")
+    private boolean enabled;
 
     @Override
     public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
         if (userRepository.count() > 0) {
             log.info("Dados já existem no banco. Pulando inicialização.");
             return;
         }
 
         log.info("Inicializando dados fake...");
+        transactionTemplate.executeWithoutResult(status -> seed());
+        log.info("✅ Dados fake inicializados com sucesso!");
+    }
 
+    private void seed() {
         // Criar usuários
-        User user1 = new User();
-        user1.setName("João Silva");
-        user1.setEmail("joao.silva@email.com");
-        user1.setCpf("12345678901");
-        user1 = userRepository.save(user1);
-
-        User user2 = new User();
-        user2.setName("Maria Santos");
-        user2.setEmail("maria.santos@email.com");
-        user2.setCpf("98765432100");
-        user2 = userRepository.save(user2);
-
+        User user1 = user("João Silva", "joao.silva@email.com", "12345678901");
+        User user2 = user("Maria Santos", "maria.santos@email.com", "98765432100");
+        userRepository.saveAll(List.of(user1, user2));
         log.info("Usuários criados: {} e {}", user1.getName(), user2.getName());
 
         // Criar contas
-        Account account1 = new Account();
-        account1.setUser(user1);
-        account1.setBalance(new BigDecimal("5000.00"));
-        account1.setAccountType(Account.AccountType.CHECKING);
-        account1 = accountRepository.save(account1);
-
-        Account account2 = new Account();
-        account2.setUser(user1);
-        account2.setBalance(new BigDecimal("10000.00"));
-        account2.setAccountType(Account.AccountType.SAVINGS);
-        account2 = accountRepository.save(account2);
-
-        Account account3 = new Account();
-        account3.setUser(user2);
-        account3.setBalance(new BigDecimal("3000.00"));
-        account3.setAccountType(Account.AccountType.CHECKING);
-        account3 = accountRepository.save(account3);
-
+        Account account1 = account(user1, "5000.00", Account.AccountType.CHECKING);
+        Account account2 = account(user1, "10000.00", Account.AccountType.SAVINGS);
+        Account account3 = account(user2, "3000.00", Account.AccountType.CHECKING);
+        accountRepository.saveAll(List.of(account1, account2, account3));
         log.info("Contas criadas para os usuários");
 
         // Criar transações
-        Transaction transaction1 = new Transaction();
-        transaction1.setAccount(account1);
-        transaction1.setAmount(new BigDecimal("1000.00"));
-        transaction1.setTransactionType(Transaction.TransactionType.DEPOSIT);
-        transaction1.setDescription("Depósito inicial");
-        transaction1.setTransactionDate(LocalDateTime.now().minusDays(5));
-        transactionRepository.save(transaction1);
+        LocalDateTime now = LocalDateTime.now();
+        transactionRepository.saveAll(List.of(
+                transaction(account1, "1000.00", Transaction.TransactionType.DEPOSIT, "Depósito inicial", now.minusDays(5)),
+                transaction(account1, "500.00", Transaction.TransactionType.WITHDRAWAL, "Saque em caixa eletrônico", now.minusDays(2)),
+                transaction(account2, "2000.00", Transaction.TransactionType.DEPOSIT, "Transferência recebida", now.minusDays(1))));
+        log.info("Transações criadas");
+    }
 
-        Transaction transaction2 = new Transaction();
-        transaction2.setAccount(account1);
-        transaction2.setAmount(new BigDecimal("500.00"));
-        transaction2.setTransactionType(Transaction.TransactionType.WITHDRAWAL);
-        transaction2.setDescription("Saque em caixa eletrônico");
-        transaction2.setTransactionDate(LocalDateTime.now().minusDays(2));
-        transactionRepository.save(transaction2);
+    private User user(String name, String email, String cpf) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        user.setCpf(cpf);
+        return user;
+    }
 
-        Transaction transaction3 = new Transaction();
-        transaction3.setAccount(account2);
-        transaction3.setAmount(new BigDecimal("2000.00"));
-        transaction3.setTransactionType(Transaction.TransactionType.DEPOSIT);
-        transaction3.setDescription("Transferência recebida");
-        transaction3.setTransactionDate(LocalDateTime.now().minusDays(1));
-        transactionRepository.save(transaction3);
+    private Account account(User user, String balance, Account.AccountType accountType) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumberAllocator.next());
+        account.setUser(user);
+        account.setBalance(new BigDecimal(balance));
+        account.setAccountType(accountType);
+        return account;
+    }
 
-        log.info("Transações criadas");
-        log.info("✅ Dados fake inicializados com sucesso!");
+    private Transaction transaction(Account account, String amount, Transaction.TransactionType type,
+                                    String description, LocalDateTime transactionDate) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTransactionType(type);
+        transaction.setDescription(description);
+        transaction.setTransactionDate(transactionDate);
+        return transaction;
     }
 }
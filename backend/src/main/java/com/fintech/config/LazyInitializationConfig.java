@@ -0,0 +1,32 @@
+package com.fintech.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Com spring.main.lazy-initialization (perfil faststart) continuam ansiosos: o EntityManagerFactory, para
+// que mapeamento, validação do esquema e Flyway falhem na inicialização e não na primeira requisição;
+// beans com @Scheduled, que nunca seriam criados e não agendariam nada; e o monitor de pinning
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerInfrastructure() {
+        return (beanName, beanDefinition, beanType) -> EntityManagerFactory.class.isAssignableFrom(beanType)
+                || VirtualThreadPinningMonitor.class.isAssignableFrom(beanType)
+                || hasScheduledMethods(beanType);
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        AtomicBoolean scheduled = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType, method -> scheduled.set(true),
+                method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+        return scheduled.get();
+    }
+}
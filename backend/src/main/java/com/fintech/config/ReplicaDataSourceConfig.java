@@ -0,0 +1,64 @@
+package com.fintech.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Leituras readOnly em réplicas: o primário vem de spring.datasource e as réplicas de fintech.replicas.urls,
+// todas com as configurações de spring.datasource.hikari. Desligado, o DataSource é o do auto-configure do Boot
+@Configuration
+@ConditionalOnProperty(name = "fintech.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             @Value("${fintech.replicas.urls}") List<String> urls,
+                                                             @Value("${fintech.replicas.username:${spring.datasource.username:}}") String username,
+                                                             @Value("${fintech.replicas.password:${spring.datasource.password:}}") String password,
+                                                             @Value("${fintech.replicas.max-lag:10s}") Duration maxLag) {
+        HikariDataSource primary = pool(properties.initializeDataSourceBuilder(), environment, "primary");
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            replicas.add(pool(properties.initializeDataSourceBuilder()
+                    .url(urls.get(i).trim())
+                    .username(username)
+                    .password(password), environment, "replica-" + i));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, maxLag);
+    }
+
+    // Único DataSource visto por JPA, Flyway e JdbcTemplate. O proxy adia a conexão física até o primeiro
+    // comando, depois que a transação já se declarou readOnly
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${fintech.replicas.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+
+    private static HikariDataSource pool(DataSourceBuilder<?> builder, Environment environment, String name) {
+        HikariDataSource dataSource = builder.type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
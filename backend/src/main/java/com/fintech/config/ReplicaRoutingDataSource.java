@@ -0,0 +1,168 @@
+package com.fintech.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Transações readOnly vão para uma réplica saudável (rodízio); o resto, e tudo fora de transação, vai
+// para o primário. Só funciona atrás do LazyConnectionDataSourceProxy: a conexão física é pedida no primeiro
+// comando, quando a transação já foi marcada como readOnly. Réplica que falha ao conectar sai do rodízio
+// até a próxima checagem de saúde e a leitura cai no primário.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    // Marcado pelo ReadYourWritesFilter: requisições de escrita e as logo depois dela leem do primário
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+    }
+
+    static void pinToPrimary(boolean pinned) {
+        if (pinned) {
+            PRIMARY_PINNED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_PINNED.remove();
+        }
+    }
+
+    // Para cargas do cache, compartilhado por todos os clientes: uma entrada lida numa réplica atrasada seria
+    // servida até o TTL, inclusive a quem acabou de escrever. Vale só para a transação ainda sem conexão
+    public static <T> T onPrimary(Supplier<T> loader) {
+        boolean pinned = Boolean.TRUE.equals(PRIMARY_PINNED.get());
+        pinToPrimary(true);
+        try {
+            return loader.get();
+        } finally {
+            pinToPrimary(pinned);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = replicaForCurrentTransaction();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            replica.down("falha ao conectar: " + e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Credenciais vêm da configuração do pool");
+    }
+
+    private Replica replicaForCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || Boolean.TRUE.equals(PRIMARY_PINNED.get())) {
+            return null;
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // Conexão válida e, no PostgreSQL, replay da WAL dentro de maxLag (réplica ociosa conta como em dia)
+    @Scheduled(fixedDelayString = "${fintech.replicas.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(2)) {
+                    replica.down("conexão inválida");
+                    continue;
+                }
+                double lagSeconds = lagSeconds(connection);
+                if (lagSeconds > maxLag.toMillis() / 1000.0) {
+                    replica.down(String.format("atraso de replicação de %.1f s", lagSeconds));
+                } else {
+                    replica.up();
+                }
+            } catch (SQLException e) {
+                replica.down(e.getMessage());
+            }
+        }
+    }
+
+    private double lagSeconds(Connection connection) throws SQLException {
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "select case when not pg_is_in_recovery() " +
+                     "or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+                     "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end")) {
+            resultSet.next();
+            return resultSet.getDouble(1);
+        }
+    }
+
+    // Métricas do Hikari e health check do actuator enxergam o pool do primário
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private void down(String reason) {
+            if (healthy) {
+                log.warn("Réplica {} fora do rodízio: {}", dataSource.getPoolName(), reason);
+            }
+            healthy = false;
+        }
+
+        private void up() {
+            if (!healthy) {
+                log.info("Réplica {} de volta ao rodízio", dataSource.getPoolName());
+            }
+            healthy = true;
+        }
+    }
+}
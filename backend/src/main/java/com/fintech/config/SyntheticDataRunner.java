@@ -0,0 +1,67 @@
+package com.fintech.config;
+
+import com.fintech.service.SyntheticDataGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Massa sintética na inicialização (fintech.generator.*). Sem exit-when-done a aplicação segue servindo
+// sobre os dados gerados, útil para testes de carga contra o H2
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataRunner implements CommandLineRunner {
+
+    private final SyntheticDataGenerator syntheticDataGenerator;
+    private final ConfigurableApplicationContext applicationContext;
+
+    @Value("${fintech.generator.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fintech.generator.exit-when-done:false}")
+    private boolean exitWhenDone;
+
+    @Value("${fintech.generator.users:1000}")
+    private int users;
+
+    @Value("${fintech.generator.accounts-per-user:3}")
+    private int accountsPerUser;
+
+    @Value("${fintech.generator.transactions-per-account:100}")
+    private int transactionsPerAccount;
+
+    @Value("${fintech.generator.history:365d}")
+    private Duration history;
+
+    @Value("${fintech.generator.threads:4}")
+    private int threads;
+
+    @Value("${fintech.generator.seed:42}")
+    private long seed;
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
+        log.info("Gerando {} usuários, {} contas por usuário e {} transações por conta ({} threads)...",
+                users, accountsPerUser, transactionsPerAccount, threads);
+        SyntheticDataGenerator.Result result = syntheticDataGenerator.generate(new SyntheticDataGenerator.Plan(
+                users, accountsPerUser, transactionsPerAccount, history, threads, seed));
+        long rows = result.users() + result.accounts() + result.transactions() + result.snapshots();
+        double seconds = Math.max(0.001, result.elapsed().toMillis() / 1000.0);
+        log.info("Gerados {} usuários, {} contas, {} transações e {} snapshots em {} s ({} linhas/s)",
+                result.users(), result.accounts(), result.transactions(), result.snapshots(),
+                String.format("%.1f", seconds), Math.round(rows / seconds));
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+}
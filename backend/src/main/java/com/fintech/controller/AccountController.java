@@ -1,13 +1,19 @@
 package com.fintech.controller;
 
 import com.fintech.dto.AccountDTO;
+import com.fintech.dto.StatementDTO;
 import com.fintech.service.AccountService;
+import com.fintech.service.StatementService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,19 +22,33 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final StatementService statementService;
 
     @GetMapping
-    public ResponseEntity<List<AccountDTO>> findAll() {
-        List<AccountDTO> accounts = accountService.findAll();
-        return ResponseEntity.ok(accounts);
+    public ResponseEntity<List<AccountDTO>> findAll(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(accountService.findAll(cursor, limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<AccountDTO> findById(@PathVariable Long id) {
-        AccountDTO account = accountService.findById(id);
+    public ResponseEntity<AccountDTO> findById(@PathVariable Long id, WebRequest request) {
+        // 304 só com a versão (uma consulta pela chave primária): o corpo só é carregado quando ela mudou
+        String changeTag = accountService.changeTag(id);
+        if (ETags.notModified(request, changeTag)) {
+            return null;
+        }
+        AccountDTO account = accountService.findById(id, changeTag);
         return ResponseEntity.ok(account);
     }
 
+    @GetMapping("/{id}/statement")
+    public ResponseEntity<StatementDTO> statement(@PathVariable Long id,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        StatementDTO statement = statementService.statement(id, from, to);
+        return ResponseEntity.ok(statement);
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<AccountDTO>> findByUserId(@PathVariable Long userId) {
         List<AccountDTO> accounts = accountService.findByUserId(userId);
@@ -42,8 +62,9 @@ public class AccountController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<AccountDTO> update(@PathVariable Long id, @Valid @RequestBody AccountDTO accountDTO) {
-        AccountDTO updatedAccount = accountService.update(id, accountDTO);
+    public ResponseEntity<AccountDTO> update(@PathVariable Long id, @Valid @RequestBody AccountDTO accountDTO,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AccountDTO updatedAccount = accountService.update(id, accountDTO, ETags.expected(ifMatch));
         return ResponseEntity.ok(updatedAccount);
     }
 
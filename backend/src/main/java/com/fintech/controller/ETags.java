@@ -0,0 +1,35 @@
+package com.fintech.controller;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+// ETags fortes a partir da versão do recurso: If-None-Match é respondido com 304 antes de qualquer
+// leitura da entidade ou serialização, e If-Match vira a lista de versões aceitas no PUT
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    // Grava o ETag na resposta; true quando o cliente já tem esta versão e a resposta é 304
+    static boolean notModified(WebRequest request, String tag) {
+        return request.checkNotModified(of(tag));
+    }
+
+    // null sem If-Match ou com "*" (qualquer versão do recurso existente). ETags fracos nunca casam
+    static List<String> expected(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        return Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .filter(etag -> etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\""))
+                .map(etag -> etag.substring(1, etag.length() - 1))
+                .toList();
+    }
+}
@@ -0,0 +1,23 @@
+package com.fintech.controller;
+
+import com.fintech.dto.PageDTO;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+// O corpo continua sendo um array; o cursor da próxima página vai no cabeçalho
+final class PageResponses {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PageResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(PageDTO<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
+}
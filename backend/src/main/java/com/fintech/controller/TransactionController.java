@@ -1,13 +1,25 @@
 package com.fintech.controller;
 
+import com.fintech.dto.BatchResultDTO;
 import com.fintech.dto.TransactionDTO;
+import com.fintech.service.AccountService;
+import com.fintech.service.IdempotencyService;
+import com.fintech.service.TransactionBatchService;
 import com.fintech.service.TransactionService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -15,12 +27,18 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TransactionController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final TransactionService transactionService;
+    private final AccountService accountService;
+    private final TransactionBatchService transactionBatchService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
-    public ResponseEntity<List<TransactionDTO>> findAll() {
-        List<TransactionDTO> transactions = transactionService.findAll();
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<List<TransactionDTO>> findAll(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(transactionService.findAll(cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -30,17 +48,60 @@ public class TransactionController {
     }
 
     @GetMapping("/account/{accountId}")
-    public ResponseEntity<List<TransactionDTO>> findByAccountId(@PathVariable Long accountId) {
-        List<TransactionDTO> transactions = transactionService.findByAccountId(accountId);
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<List<TransactionDTO>> findByAccountId(@PathVariable Long accountId,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                WebRequest request) {
+        // Mesma versão da conta: toda página muda junto com ela (cursor e limite já estão na URL)
+        if (ETags.notModified(request, accountService.changeTag(accountId))) {
+            return null;
+        }
+        return PageResponses.ok(transactionService.findByAccountId(accountId, cursor, limit));
+    }
+
+    @GetMapping("/account/{accountId}/export")
+    public ResponseEntity<StreamingResponseBody> exportByAccountId(@PathVariable Long accountId,
+                                                                   @RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de exportação inválido: " + format
+                    + " (use ndjson ou csv)");
+        }
+        TransactionService.ExportFormat exportFormat = csv
+                ? TransactionService.ExportFormat.CSV
+                : TransactionService.ExportFormat.NDJSON;
+        // Valida a conta antes de enviar os cabeçalhos da resposta
+        transactionService.requireAccount(accountId);
+
+        StreamingResponseBody body = outputStream ->
+                transactionService.exportByAccountId(accountId, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"account-" + accountId
+                        + "-transactions." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
     }
 
     @PostMapping
-    public ResponseEntity<TransactionDTO> create(@Valid @RequestBody TransactionDTO transactionDTO) {
-        TransactionDTO createdTransaction = transactionService.create(transactionDTO);
+    public ResponseEntity<TransactionDTO> create(@Valid @RequestBody TransactionDTO transactionDTO,
+                                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        TransactionDTO createdTransaction = idempotencyService.execute(idempotencyKey, "transaction", transactionDTO,
+                TransactionDTO.class, () -> transactionService.create(transactionDTO));
         return ResponseEntity.status(HttpStatus.CREATED).body(createdTransaction);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResultDTO> createBatch(HttpServletRequest request) throws IOException {
+        BatchResultDTO result = transactionBatchService.ingest(request.getInputStream());
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/{id}/reversal")
+    public ResponseEntity<TransactionDTO> reverse(@PathVariable Long id) {
+        TransactionDTO reversal = transactionService.reverse(id);
+        return ResponseEntity.status(HttpStatus.CREATED).body(reversal);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         transactionService.delete(id);
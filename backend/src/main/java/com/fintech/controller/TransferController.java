@@ -0,0 +1,28 @@
+package com.fintech.controller;
+
+import com.fintech.dto.TransferDTO;
+import com.fintech.dto.TransferResultDTO;
+import com.fintech.service.IdempotencyService;
+import com.fintech.service.TransactionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/transfers")
+@RequiredArgsConstructor
+public class TransferController {
+
+    private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+
+    @PostMapping
+    public ResponseEntity<TransferResultDTO> transfer(@Valid @RequestBody TransferDTO transferDTO,
+                                                      @RequestHeader(value = TransactionController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        TransferResultDTO result = idempotencyService.execute(idempotencyKey, "transfer", transferDTO,
+                TransferResultDTO.class, () -> transactionService.transfer(transferDTO));
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+}
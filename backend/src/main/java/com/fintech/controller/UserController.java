@@ -1,13 +1,21 @@
 package com.fintech.controller;
 
+import com.fintech.dto.AnalyticsDTO;
+import com.fintech.dto.PortfolioSummaryDTO;
 import com.fintech.dto.UserDTO;
+import com.fintech.service.AnalyticsService;
+import com.fintech.service.PortfolioSummaryService;
 import com.fintech.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,19 +24,41 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final AnalyticsService analyticsService;
+    private final PortfolioSummaryService portfolioSummaryService;
 
     @GetMapping
-    public ResponseEntity<List<UserDTO>> findAll() {
-        List<UserDTO> users = userService.findAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserDTO>> findAll(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit) {
+        return PageResponses.ok(userService.findAll(cursor, limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> findById(@PathVariable Long id) {
-        UserDTO user = userService.findById(id);
+    public ResponseEntity<UserDTO> findById(@PathVariable Long id, WebRequest request) {
+        // 304 só com a versão (uma consulta pela chave primária): o corpo só é carregado quando ela mudou
+        String changeTag = userService.changeTag(id);
+        if (ETags.notModified(request, changeTag)) {
+            return null;
+        }
+        UserDTO user = userService.findById(id, changeTag);
         return ResponseEntity.ok(user);
     }
 
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<PortfolioSummaryDTO> summary(@PathVariable Long id) {
+        PortfolioSummaryDTO summary = portfolioSummaryService.summary(id);
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping("/{id}/analytics")
+    public ResponseEntity<AnalyticsDTO> analytics(@PathVariable Long id,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                  @RequestParam(defaultValue = "day") String granularity) {
+        AnalyticsDTO analytics = analyticsService.analytics(id, from, to, granularity);
+        return ResponseEntity.ok(analytics);
+    }
+
     @PostMapping
     public ResponseEntity<UserDTO> create(@Valid @RequestBody UserDTO userDTO) {
         UserDTO createdUser = userService.create(userDTO);
@@ -36,8 +66,9 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<UserDTO> update(@PathVariable Long id, @Valid @RequestBody UserDTO userDTO) {
-        UserDTO updatedUser = userService.update(id, userDTO);
+    public ResponseEntity<UserDTO> update(@PathVariable Long id, @Valid @RequestBody UserDTO userDTO,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserDTO updatedUser = userService.update(id, userDTO, ETags.expected(ifMatch));
         return ResponseEntity.ok(updatedUser);
     }
 
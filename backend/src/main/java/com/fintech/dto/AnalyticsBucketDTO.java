@@ -0,0 +1,19 @@
+package com.fintech.dto;
+
+import com.fintech.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsBucketDTO {
+    private LocalDate periodStart;
+    private Transaction.TransactionType transactionType;
+    private BigDecimal total;
+    private Long count;
+}
@@ -0,0 +1,19 @@
+package com.fintech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsDTO {
+    private Long userId;
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private List<AnalyticsBucketDTO> buckets;
+}
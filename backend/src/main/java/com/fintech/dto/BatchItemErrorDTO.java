@@ -0,0 +1,15 @@
+package com.fintech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemErrorDTO {
+    // Posição do item no corpo da requisição (começando em 0)
+    private int index;
+    private Long accountId;
+    private String message;
+}
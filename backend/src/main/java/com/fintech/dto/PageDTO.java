@@ -0,0 +1,17 @@
+package com.fintech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDTO<T> {
+    private List<T> content;
+
+    // Token opaco para a próxima página; null quando não há mais registros
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.fintech.dto;
+
+import com.fintech.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioSummaryDTO {
+    private Long userId;
+    private BigDecimal totalBalance;
+    private Map<Account.AccountType, BigDecimal> balanceByAccountType;
+    private Long accountCount;
+    private LocalDateTime lastTransactionAt;
+}
@@ -0,0 +1,21 @@
+package com.fintech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementDTO {
+    private Long accountId;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private List<TransactionDTO> transactions;
+}
@@ -28,4 +28,7 @@ public class TransactionDTO {
     
     private String description;
     private LocalDateTime transactionDate;
+
+    // Obrigatório para TRANSFER: conta de destino
+    private Long counterpartyAccountId;
 }
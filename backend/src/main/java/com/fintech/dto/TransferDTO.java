@@ -0,0 +1,26 @@
+package com.fintech.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferDTO {
+    @NotNull(message = "Conta de origem é obrigatória")
+    private Long sourceAccountId;
+
+    @NotNull(message = "Conta de destino é obrigatória")
+    private Long destinationAccountId;
+
+    @NotNull(message = "Valor é obrigatório")
+    @Positive(message = "Valor deve ser positivo")
+    private BigDecimal amount;
+
+    private String description;
+}
@@ -0,0 +1,13 @@
+package com.fintech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResultDTO {
+    private TransactionDTO debit;
+    private TransactionDTO credit;
+}
@@ -41,16 +41,14 @@ public class Account {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Incrementado a cada alteração de saldo, inclusive pelos UPDATEs atômicos
+    @Version
+    private Long version;
+
+    // Número da conta vem do AccountNumberAllocator, atribuído antes de persistir
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
-        if (accountNumber == null || accountNumber.isEmpty()) {
-            accountNumber = generateAccountNumber();
-        }
-    }
-
-    private String generateAccountNumber() {
-        return String.format("%08d", System.currentTimeMillis() % 100000000);
     }
 
     public enum AccountType {
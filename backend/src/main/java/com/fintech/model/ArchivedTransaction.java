@@ -0,0 +1,50 @@
+package com.fintech.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Transação movida para o arquivo pelo TransactionArchiver: mesmo id e mesmas colunas, só leitura.
+// Sem chaves estrangeiras, para o histórico sobreviver ao encerramento da conta
+@Entity
+@Table(name = "archived_transactions", indexes = {
+        @Index(name = "idx_archived_transactions_account_date_id", columnList = "account_id, transaction_date, id"),
+        @Index(name = "idx_archived_transactions_reversed", columnList = "reversed_transaction_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedTransaction {
+
+    @Id
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "counterparty_account_id")
+    private Long counterpartyAccountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private Transaction.TransactionType transactionType;
+
+    @Column(name = "reversed_transaction_id")
+    private Long reversedTransactionId;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(name = "transaction_date", nullable = false)
+    private LocalDateTime transactionDate;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,36 @@
+package com.fintech.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Saldo de uma conta considerando todos os lançamentos anteriores a asOf (estratégia LEDGER)
+@Entity
+@Table(name = "balance_checkpoints", indexes = {
+        @Index(name = "idx_balance_checkpoints_account_as_of", columnList = "account_id, as_of")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package com.fintech.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Saldo de fechamento de uma conta em um dia; só existe para dias com movimentação
+@Entity
+@Table(name = "balance_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_snapshots_account_date", columnNames = {"account_id", "snapshot_date"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(name = "closing_balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal closingBalance;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,41 @@
+package com.fintech.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Saldo, quantidade de contas e última transação por usuário e tipo de conta.
+// Um usuário tem uma linha para cada AccountType ou nenhuma
+@Entity
+@Table(name = "portfolio_summaries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_portfolio_summaries_user_type", columnNames = {"user_id", "account_type"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "account_type", nullable = false)
+    private Account.AccountType accountType;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "account_count", nullable = false)
+    private Long accountCount;
+
+    @Column(name = "last_transaction_at")
+    private LocalDateTime lastTransactionAt;
+}
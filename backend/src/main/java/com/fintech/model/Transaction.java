@@ -11,14 +11,19 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_date_id", columnList = "transaction_date, id"),
+        @Index(name = "idx_transactions_account_date_id", columnList = "account_id, transaction_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
 
+    // Sequência com otimizador pooled: IDENTITY impede o Hibernate de agrupar INSERTs em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Conta é obrigatória")
@@ -26,6 +31,11 @@ public class Transaction {
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
+    // Outra ponta de uma transferência (destino no débito, origem no crédito)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "counterparty_account_id")
+    private Account counterpartyAccount;
+
     @NotNull(message = "Valor é obrigatório")
     @Positive(message = "Valor deve ser positivo")
     @Column(nullable = false, precision = 19, scale = 2)
@@ -35,18 +45,39 @@ public class Transaction {
     @Column(nullable = false)
     private TransactionType transactionType;
 
+    // Lançamento compensado por este estorno; único, então cada transação é estornada no máximo uma vez
+    // (no PostgreSQL, com transactions particionada, a unicidade fica na tabela transaction_reversals)
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "reversed_transaction_id", unique = true)
+    private Transaction reversedTransaction;
+
     @Column(length = 500)
     private String description;
 
-    @Column(name = "transaction_date")
+    // Chave de partição no PostgreSQL (partições mensais)
+    @Column(name = "transaction_date", nullable = false)
     private LocalDateTime transactionDate;
 
     @PrePersist
     protected void onCreate() {
-        transactionDate = LocalDateTime.now();
+        if (transactionDate == null) {
+            transactionDate = LocalDateTime.now();
+        }
     }
 
     public enum TransactionType {
-        DEPOSIT, WITHDRAWAL, TRANSFER, PAYMENT
+        DEPOSIT, WITHDRAWAL, TRANSFER, PAYMENT,
+        // Perna de crédito de uma transferência; TRANSFER é a de débito
+        TRANSFER_IN,
+        // Lançamentos compensatórios: estornam um débito (REVERSAL_CREDIT) ou um crédito (REVERSAL_DEBIT)
+        REVERSAL_CREDIT, REVERSAL_DEBIT;
+
+        public boolean isCredit() {
+            return this == DEPOSIT || this == TRANSFER_IN || this == REVERSAL_CREDIT;
+        }
+
+        public boolean isReversal() {
+            return this == REVERSAL_CREDIT || this == REVERSAL_DEBIT;
+        }
     }
 }
@@ -1,16 +1,96 @@
 package com.fintech.repository;
 
+import com.fintech.dto.AccountDTO;
 import com.fintech.model.Account;
 import com.fintech.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
+
+    String SELECT_DTO = "select new com.fintech.dto.AccountDTO(a.id, a.accountNumber, a.user.id, a.balance, " +
+                        "a.accountType, a.createdAt) from Account a ";
+
     List<Account> findByUser(User user);
     Optional<Account> findByAccountNumber(String accountNumber);
     boolean existsByAccountNumber(String accountNumber);
+
+    @Query(SELECT_DTO + "where a.id = :id")
+    Optional<AccountDTO> findDTOById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + "where a.id > :id order by a.id")
+    List<AccountDTO> findPageAfter(@Param("id") Long id, Limit limit);
+
+    @Query(SELECT_DTO + "where a.user.id = :userId order by a.id")
+    List<AccountDTO> findDTOsByUserId(@Param("userId") Long userId);
+
+    @Query("select a.user.id from Account a where a.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    @Query("select a.user.id as userId, a.accountType as accountType from Account a where a.id = :id")
+    Optional<OwnerView> findOwnerById(@Param("id") Long id);
+
+    @Query("select a.balance from Account a where a.id = :id")
+    Optional<BigDecimal> findBalanceById(@Param("id") Long id);
+
+    @Query("select a.balance as balance, a.version as version from Account a where a.id = :id")
+    Optional<BalanceView> findBalanceAndVersionById(@Param("id") Long id);
+
+    @Query("select a.version from Account a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id = :id")
+    Optional<Account> findForUpdateById(@Param("id") Long id);
+
+    // Sempre na ordem dos ids, como as transferências: nunca esperam umas pelas outras em ciclo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :ids order by a.id")
+    List<Account> findAllForUpdateByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 where a.id = :id")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    // Débito condicional: a checagem de saldo e a escrita acontecem no mesmo comando
+    @Modifying
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+           "where a.id = :id and a.balance >= :amount")
+    int debitIfSufficient(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1 " +
+           "where a.id = :id and a.version = :version")
+    int updateBalanceIfVersion(@Param("id") Long id, @Param("balance") BigDecimal balance, @Param("version") Long version);
+
+    @Modifying
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1 where a.id = :id")
+    int updateBalance(@Param("id") Long id, @Param("balance") BigDecimal balance);
+
+    // Sem mudança de saldo (exclusão de lançamento): só invalida os ETags da conta
+    @Modifying
+    @Query("update Account a set a.version = a.version + 1 where a.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    interface BalanceView {
+        BigDecimal getBalance();
+        Long getVersion();
+    }
+
+    interface OwnerView {
+        Long getUserId();
+        Account.AccountType getAccountType();
+    }
 }
@@ -0,0 +1,109 @@
+package com.fintech.repository;
+
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.ArchivedTransaction;
+import com.fintech.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Mesmas leituras do TransactionRepository sobre o arquivo; para janelas recentes o índice
+// (account_id, transaction_date, id) não devolve nada e a consulta custa uma descida na árvore
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+
+    String SELECT_DTO = "select new com.fintech.dto.TransactionDTO(t.id, t.accountId, t.amount, " +
+                        "t.transactionType, t.description, t.transactionDate, t.counterpartyAccountId) " +
+                        "from ArchivedTransaction t ";
+
+    // Cópia no próprio banco, sem trazer as linhas para a JVM
+    @Modifying
+    @Query("insert into ArchivedTransaction (id, accountId, counterpartyAccountId, amount, transactionType, " +
+           "reversedTransactionId, description, transactionDate, archivedAt) " +
+           "select t.id, t.account.id, t.counterpartyAccount.id, t.amount, t.transactionType, " +
+           "t.reversedTransaction.id, t.description, t.transactionDate, :archivedAt " +
+           "from Transaction t where t.id in :ids")
+    int copyFromTransactions(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Query(SELECT_DTO + "where t.id = :id")
+    Optional<TransactionDTO> findDTOById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + "where t.accountId = :accountId " +
+           "order by t.transactionDate desc, t.id desc")
+    List<TransactionDTO> findFirstPageByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    @Query(SELECT_DTO + "where t.accountId = :accountId " +
+           "and (t.transactionDate < :date or (t.transactionDate = :date and t.id < :id)) " +
+           "order by t.transactionDate desc, t.id desc")
+    List<TransactionDTO> findPageByAccountIdAfter(
+        @Param("accountId") Long accountId,
+        @Param("date") LocalDateTime date,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_DTO + "where t.accountId = :accountId order by t.transactionDate, t.id")
+    Stream<TransactionDTO> streamByAccountId(@Param("accountId") Long accountId);
+
+    @Query(SELECT_DTO +
+           "where t.accountId = :accountId and t.transactionDate >= :start and t.transactionDate < :end " +
+           "order by t.transactionDate, t.id")
+    List<TransactionDTO> findStatementLines(
+        @Param("accountId") Long accountId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end
+    );
+
+    @Query("select cast(t.transactionDate as LocalDate) as entryDate, t.transactionType as transactionType, " +
+           "sum(t.amount) as total, count(t) as entries from ArchivedTransaction t " +
+           "where t.accountId in (select a.id from Account a where a.user.id = :userId) " +
+           "and t.transactionDate >= :start and t.transactionDate < :end " +
+           "group by cast(t.transactionDate as LocalDate), t.transactionType")
+    List<TransactionRepository.DailyTotalView> sumDailyByUserId(
+        @Param("userId") Long userId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end
+    );
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_DTO +
+           "where t.accountId in (select a.id from Account a where a.user.id = :userId) " +
+           "and t.transactionDate >= :start and t.transactionDate < :end")
+    Stream<TransactionDTO> streamByUserIdBetween(
+        @Param("userId") Long userId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end
+    );
+
+    @Query("select coalesce(sum(case when t.transactionType in :creditTypes then t.amount else -t.amount end), 0) " +
+           "from ArchivedTransaction t where t.accountId = :accountId and t.transactionDate >= :start")
+    BigDecimal sumSignedAmountSince(
+        @Param("accountId") Long accountId,
+        @Param("start") LocalDateTime start,
+        @Param("creditTypes") Collection<Transaction.TransactionType> creditTypes
+    );
+
+    boolean existsByReversedTransactionId(Long transactionId);
+}
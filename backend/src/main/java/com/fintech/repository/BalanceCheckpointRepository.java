@@ -0,0 +1,76 @@
+package com.fintech.repository;
+
+import com.fintech.model.Account;
+import com.fintech.model.BalanceCheckpoint;
+import com.fintech.model.Transaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    // Saldo em 'at': último checkpoint até 'at' mais os lançamentos entre ele e 'at'.
+    // Sem checkpoint, parte do saldo de abertura da conta (accounts.balance) na data de criação
+    @Query("select a.id as accountId, coalesce(c.balance, a.balance) + coalesce((" +
+           "  select sum(case when t.transactionType in :creditTypes then t.amount else -t.amount end) " +
+           "  from Transaction t where t.account.id = a.id " +
+           "  and t.transactionDate >= coalesce(c.asOf, a.createdAt) and t.transactionDate < :at), 0) as balance " +
+           "from Account a left join BalanceCheckpoint c on c.accountId = a.id and c.asOf = (" +
+           "  select max(c2.asOf) from BalanceCheckpoint c2 where c2.accountId = a.id and c2.asOf <= :at) " +
+           "where a.id in :accountIds")
+    List<LedgerBalanceView> findBalancesAt(
+        @Param("accountIds") Collection<Long> accountIds,
+        @Param("at") LocalDateTime at,
+        @Param("creditTypes") Collection<Transaction.TransactionType> creditTypes
+    );
+
+    // Último checkpoint de cada conta ou, sem checkpoint, o saldo de abertura
+    @Query("select a.id as accountId, coalesce(c.balance, a.balance) as balance " +
+           "from Account a left join BalanceCheckpoint c on c.accountId = a.id and c.asOf = (" +
+           "  select max(c2.asOf) from BalanceCheckpoint c2 where c2.accountId = a.id) " +
+           "where a.id in :accountIds")
+    List<LedgerBalanceView> findCheckpointedBalances(@Param("accountIds") Collection<Long> accountIds);
+
+    // Lançamentos das contas de um usuário posteriores ao último checkpoint de cada uma, por tipo de conta
+    @Query("select a.accountType as accountType, " +
+           "sum(case when t.transactionType in :creditTypes then t.amount else -t.amount end) as balance, " +
+           "max(t.transactionDate) as lastTransactionAt " +
+           "from Transaction t join t.account a where a.user.id = :userId " +
+           "and t.transactionDate >= coalesce((" +
+           "  select max(c.asOf) from BalanceCheckpoint c where c.accountId = a.id), a.createdAt) " +
+           "group by a.accountType")
+    List<PendingEntriesView> findPendingEntriesByUserId(
+        @Param("userId") Long userId,
+        @Param("creditTypes") Collection<Transaction.TransactionType> creditTypes
+    );
+
+    @Query("select max(c.asOf) from BalanceCheckpoint c")
+    Optional<LocalDateTime> findLatestAsOf();
+
+    @Query("select max(c.asOf) from BalanceCheckpoint c where c.accountId = :accountId")
+    Optional<LocalDateTime> findLatestAsOfByAccountId(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query("delete from BalanceCheckpoint c where c.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+
+    interface LedgerBalanceView {
+        Long getAccountId();
+        BigDecimal getBalance();
+    }
+
+    interface PendingEntriesView {
+        Account.AccountType getAccountType();
+        BigDecimal getBalance();
+        LocalDateTime getLastTransactionAt();
+    }
+}
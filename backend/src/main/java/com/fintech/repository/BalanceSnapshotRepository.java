@@ -0,0 +1,35 @@
+package com.fintech.repository;
+
+import com.fintech.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(
+        Long accountId,
+        LocalDate date
+    );
+
+    @Modifying
+    @Query("update BalanceSnapshot s set s.closingBalance = :balance, s.updatedAt = :updatedAt " +
+           "where s.accountId = :accountId and s.snapshotDate = :date")
+    int updateClosingBalance(
+        @Param("accountId") Long accountId,
+        @Param("date") LocalDate date,
+        @Param("balance") BigDecimal balance,
+        @Param("updatedAt") LocalDateTime updatedAt
+    );
+
+    @Modifying
+    @Query("delete from BalanceSnapshot s where s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,33 @@
+package com.fintech.repository;
+
+import com.fintech.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // INSERT direto (sem o SELECT do merge): chave repetida falha ou espera o commit de quem a gravou antes
+    @Modifying
+    @Query("insert into IdempotencyKey (idempotencyKey, operation, requestHash, createdAt) " +
+           "values (:key, :operation, :requestHash, :createdAt)")
+    int insert(
+        @Param("key") String key,
+        @Param("operation") String operation,
+        @Param("requestHash") String requestHash,
+        @Param("createdAt") LocalDateTime createdAt
+    );
+
+    @Modifying
+    @Query("update IdempotencyKey k set k.responseBody = :responseBody where k.idempotencyKey = :key")
+    int saveResponse(@Param("key") String key, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,52 @@
+package com.fintech.repository;
+
+import com.fintech.model.Account;
+import com.fintech.model.PortfolioSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PortfolioSummaryRepository extends JpaRepository<PortfolioSummary, Long> {
+
+    List<PortfolioSummary> findByUserId(Long userId);
+
+    @Query("select u.id from User u where not exists (select s.id from PortfolioSummary s where s.userId = u.id)")
+    List<Long> findUserIdsWithoutSummary();
+
+    // Incrementos atômicos: duas transações do mesmo usuário só disputam a linha entre o UPDATE e o commit
+    @Modifying
+    @Query("update PortfolioSummary s set s.balance = s.balance + :balanceDelta, " +
+           "s.accountCount = s.accountCount + :countDelta " +
+           "where s.userId = :userId and s.accountType = :accountType")
+    int applyDelta(
+        @Param("userId") Long userId,
+        @Param("accountType") Account.AccountType accountType,
+        @Param("balanceDelta") BigDecimal balanceDelta,
+        @Param("countDelta") long countDelta
+    );
+
+    @Modifying
+    @Query("update PortfolioSummary s set s.balance = s.balance + :balanceDelta, " +
+           "s.accountCount = s.accountCount + :countDelta, " +
+           "s.lastTransactionAt = case when s.lastTransactionAt is null or s.lastTransactionAt < :transactionAt " +
+           "  then :transactionAt else s.lastTransactionAt end " +
+           "where s.userId = :userId and s.accountType = :accountType")
+    int applyDeltaWithTransaction(
+        @Param("userId") Long userId,
+        @Param("accountType") Account.AccountType accountType,
+        @Param("balanceDelta") BigDecimal balanceDelta,
+        @Param("countDelta") long countDelta,
+        @Param("transactionAt") LocalDateTime transactionAt
+    );
+
+    @Modifying
+    @Query("delete from PortfolioSummary s where s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -1,19 +1,166 @@
 package com.fintech.repository;
 
+import com.fintech.dto.TransactionDTO;
 import com.fintech.model.Account;
 import com.fintech.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+    // Leituras projetam direto no DTO: sem entidades gerenciadas nem snapshot no contexto de persistência
+    String SELECT_DTO = "select new com.fintech.dto.TransactionDTO(t.id, t.account.id, t.amount, " +
+                        "t.transactionType, t.description, t.transactionDate, t.counterpartyAccount.id) " +
+                        "from Transaction t ";
+
     List<Transaction> findByAccount(Account account);
     List<Transaction> findByAccountAndTransactionDateBetween(
         Account account, 
         LocalDateTime startDate, 
         LocalDateTime endDate
     );
+
+    @Query(SELECT_DTO + "where t.id = :id")
+    Optional<TransactionDTO> findDTOById(@Param("id") Long id);
+
+    @Query("select t.account.id from Transaction t where t.id = :id")
+    Optional<Long> findAccountIdById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + "order by t.transactionDate desc, t.id desc")
+    List<TransactionDTO> findFirstPage(Limit limit);
+
+    @Query(SELECT_DTO +
+           "where t.transactionDate < :date or (t.transactionDate = :date and t.id < :id) " +
+           "order by t.transactionDate desc, t.id desc")
+    List<TransactionDTO> findPageAfter(@Param("date") LocalDateTime date, @Param("id") Long id, Limit limit);
+
+    @Query(SELECT_DTO + "where t.account.id = :accountId " +
+           "order by t.transactionDate desc, t.id desc")
+    List<TransactionDTO> findFirstPageByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    @Query(SELECT_DTO + "where t.account.id = :accountId " +
+           "and (t.transactionDate < :date or (t.transactionDate = :date and t.id < :id)) " +
+           "order by t.transactionDate desc, t.id desc")
+    List<TransactionDTO> findPageByAccountIdAfter(
+        @Param("accountId") Long accountId,
+        @Param("date") LocalDateTime date,
+        @Param("id") Long id,
+        Limit limit
+    );
+
+    // Cursor no servidor: o driver traz as linhas em lotes em vez de materializar o resultado
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_DTO + "where t.account.id = :accountId order by t.transactionDate, t.id")
+    Stream<TransactionDTO> streamByAccountId(@Param("accountId") Long accountId);
+
+    @Query(SELECT_DTO +
+           "where t.account.id = :accountId and t.transactionDate >= :start and t.transactionDate < :end " +
+           "order by t.transactionDate, t.id")
+    List<TransactionDTO> findStatementLines(
+        @Param("accountId") Long accountId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end
+    );
+
+    // Agregação no banco por dia e tipo: o resultado tem no máximo dias x tipos linhas
+    @Query("select cast(t.transactionDate as LocalDate) as entryDate, t.transactionType as transactionType, " +
+           "sum(t.amount) as total, count(t) as entries from Transaction t " +
+           "where t.account.user.id = :userId and t.transactionDate >= :start and t.transactionDate < :end " +
+           "group by cast(t.transactionDate as LocalDate), t.transactionType")
+    List<DailyTotalView> sumDailyByUserId(
+        @Param("userId") Long userId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end
+    );
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_DTO +
+           "where t.account.user.id = :userId and t.transactionDate >= :start and t.transactionDate < :end")
+    Stream<TransactionDTO> streamByUserIdBetween(
+        @Param("userId") Long userId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end
+    );
+
+    @Query("select coalesce(sum(case when t.transactionType in :creditTypes then t.amount else -t.amount end), 0) " +
+           "from Transaction t where t.account.id = :accountId and t.transactionDate >= :start")
+    BigDecimal sumSignedAmountSince(
+        @Param("accountId") Long accountId,
+        @Param("start") LocalDateTime start,
+        @Param("creditTypes") Collection<Transaction.TransactionType> creditTypes
+    );
+
+    @Query("select distinct t.account.id from Transaction t " +
+           "where t.transactionDate >= :from and t.transactionDate < :to")
+    List<Long> findAccountIdsWithEntriesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select t.account.accountType as accountType, max(t.transactionDate) as lastTransactionAt " +
+           "from Transaction t where t.account.user.id = :userId group by t.account.accountType")
+    List<LastTransactionView> findLastTransactionDatesByUserId(@Param("userId") Long userId);
+
+    @Query("select t.account.id as accountId, max(t.transactionDate) as lastTransactionAt from Transaction t " +
+           "where t.account.id in :accountIds and t.transactionDate >= :from and t.transactionDate < :to " +
+           "group by t.account.id")
+    List<LastEntryView> findLastEntryDatesBetween(
+        @Param("accountIds") Collection<Long> accountIds,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
+    );
+
+    @Query("select count(t) from Transaction t where t.account.id = :accountId and t.transactionDate >= :since")
+    long countByAccountIdSince(@Param("accountId") Long accountId, @Param("since") LocalDateTime since);
+
+    boolean existsByReversedTransactionId(Long transactionId);
+
+    // Mais antigas primeiro; um lançamento estornado fica até o estorno sair, para nenhum estorno
+    // ativo apontar para uma linha arquivada
+    @Query("select t.id from Transaction t where t.transactionDate < :cutoff " +
+           "and not exists (select r.id from Transaction r where r.reversedTransaction.id = t.id) " +
+           "order by t.transactionDate, t.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    @Modifying
+    @Query("delete from Transaction t where t.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface DailyTotalView {
+        LocalDate getEntryDate();
+        Transaction.TransactionType getTransactionType();
+        BigDecimal getTotal();
+        Long getEntries();
+    }
+
+    interface LastTransactionView {
+        Account.AccountType getAccountType();
+        LocalDateTime getLastTransactionAt();
+    }
+
+    interface LastEntryView {
+        Long getAccountId();
+        LocalDateTime getLastTransactionAt();
+    }
 }
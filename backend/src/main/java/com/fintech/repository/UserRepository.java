@@ -1,15 +1,52 @@
 package com.fintech.repository;
 
+import com.fintech.dto.UserDTO;
 import com.fintech.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    String SELECT_DTO = "select new com.fintech.dto.UserDTO(u.id, u.name, u.email, u.cpf, u.createdAt) from User u ";
+
     Optional<User> findByEmail(String email);
     Optional<User> findByCpf(String cpf);
     boolean existsByEmail(String email);
     boolean existsByCpf(String cpf);
+
+    @Query(SELECT_DTO + "where u.id = :id")
+    Optional<UserDTO> findDTOById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + "where u.id > :id order by u.id")
+    List<UserDTO> findPageAfter(@Param("id") Long id, Limit limit);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Uma única consulta para as duas verificações de unicidade
+    List<UniqueKeysView> findByEmailOrCpf(String email, String cpf);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.id as id, u.email as email, u.cpf as cpf from User u")
+    Stream<UniqueKeysView> streamUniqueKeys();
+
+    interface UniqueKeysView {
+        Long getId();
+        String getEmail();
+        String getCpf();
+    }
 }
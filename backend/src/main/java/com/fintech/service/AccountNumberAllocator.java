@@ -0,0 +1,123 @@
+package com.fintech.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Números de conta a partir de blocos reservados numa sequence do banco: cada nextval reserva
+// BLOCK_SIZE números exclusivos para esta instância, então várias instâncias nunca colidem.
+// Dentro do bloco a alocação é um getAndIncrement, sem lock nem ida ao banco.
+@Component
+@Slf4j
+public class AccountNumberAllocator {
+
+    static final String SEQUENCE = "account_number_seq";
+    // Igual ao INCREMENT BY da sequence: mudar exige uma sequence nova
+    static final int BLOCK_SIZE = 1000;
+    static final int BASE_DIGITS = 9;
+    private static final long MAX_VALUE = 1_000_000_000L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+    // Bloco reservado por uma thread que perdeu a corrida de troca: usado na próxima troca
+    private final AtomicReference<Block> spare = new AtomicReference<>();
+
+    public AccountNumberAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SEQUENCE);
+    }
+
+    @PostConstruct
+    public void createSequence() {
+        jdbcTemplate.execute("create sequence if not exists " + SEQUENCE
+                + " start with 1 increment by " + BLOCK_SIZE);
+    }
+
+    public String next() {
+        while (true) {
+            Block block = current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return format(value);
+            }
+
+            Block fresh = spare.getAndSet(null);
+            if (fresh == null) {
+                fresh = reserveBlock();
+            }
+            if (!current.compareAndSet(block, fresh)) {
+                // Outra thread já trocou o bloco; guarda este para não desperdiçar a reserva
+                spare.compareAndSet(null, fresh);
+            }
+        }
+    }
+
+    private Block reserveBlock() {
+        Long start = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+        if (start == null || start + BLOCK_SIZE > MAX_VALUE) {
+            throw new IllegalStateException("Faixa de números de conta esgotada");
+        }
+        log.debug("Reservado bloco de números de conta [{}, {})", start, start + BLOCK_SIZE);
+        return new Block(start, start + BLOCK_SIZE);
+    }
+
+    // Número base com zeros à esquerda seguido do dígito verificador de Luhn
+    static String format(long value) {
+        char[] digits = new char[BASE_DIGITS + 1];
+        long remaining = value;
+        for (int i = BASE_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        digits[BASE_DIGITS] = (char) ('0' + luhnCheckDigit(digits, BASE_DIGITS));
+        return new String(digits);
+    }
+
+    static boolean isValid(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != BASE_DIGITS + 1) {
+            return false;
+        }
+        char[] digits = accountNumber.toCharArray();
+        for (char digit : digits) {
+            if (digit < '0' || digit > '9') {
+                return false;
+            }
+        }
+        return digits[BASE_DIGITS] - '0' == luhnCheckDigit(digits, BASE_DIGITS);
+    }
+
+    private static int luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static final class Block {
+        private final long end;
+        private final AtomicLong next;
+
+        private Block(long start, long end) {
+            this.end = end;
+            this.next = new AtomicLong(start);
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.fintech.service;
 
+import com.fintech.config.CacheConfig;
+import com.fintech.config.ReplicaRoutingDataSource;
 import com.fintech.dto.AccountDTO;
+import com.fintech.dto.PageDTO;
 import com.fintech.model.Account;
 import com.fintech.model.User;
 import com.fintech.repository.AccountRepository;
 import com.fintech.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -19,68 +29,166 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final CacheManager cacheManager;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final BalanceLedger balanceLedger;
+    private final PortfolioSummaryService portfolioSummaryService;
 
     @Transactional(readOnly = true)
-    public List<AccountDTO> findAll() {
-        return accountRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public PageDTO<AccountDTO> findAll(String cursor, Integer limit) {
+        int pageSize = CursorCodec.pageSize(limit);
+        Long afterId = cursor == null || cursor.isEmpty() ? 0L : CursorCodec.decodeId(cursor);
+        List<AccountDTO> rows = accountRepository.findPageAfter(afterId, Limit.of(pageSize + 1));
+
+        List<AccountDTO> content = withLedgerBalances(rows.size() > pageSize ? rows.subList(0, pageSize) : rows);
+        String nextCursor = rows.size() > pageSize
+                ? CursorCodec.encodeId(content.get(content.size() - 1).getId())
+                : null;
+        return new PageDTO<>(content, nextCursor);
     }
 
+    @Cacheable(cacheNames = CacheConfig.ACCOUNTS, key = "#id", sync = true)
     @Transactional(readOnly = true)
     public AccountDTO findById(Long id) {
-        Account account = accountRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + id));
-        return toDTO(account);
+        return ReplicaRoutingDataSource.onPrimary(() -> load(id));
     }
 
+    @Cacheable(cacheNames = CacheConfig.ACCOUNTS_BY_USER, key = "#userId", sync = true)
     @Transactional(readOnly = true)
     public List<AccountDTO> findByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + userId));
-        
-        return accountRepository.findByUser(user).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return ReplicaRoutingDataSource.onPrimary(() -> {
+            List<AccountDTO> accounts = accountRepository.findDTOsByUserId(userId);
+            // Lista vazia é ambígua: só então confirma se o usuário existe
+            if (accounts.isEmpty() && !userRepository.existsById(userId)) {
+                throw new RuntimeException("Usuário não encontrado com ID: " + userId);
+            }
+            return withLedgerBalances(accounts);
+        });
     }
 
+    // Corpo de um ETag já conferido pelo controller. A chave leva a versão lida antes da carga, que vai ao
+    // primário: o corpo guardado nunca é mais antigo que o ETag enviado com ele, mesmo com a versão lida numa
+    // réplica. Só as faltas do cache chegam ao primário; a versão de cada GET vem da réplica
+    @Cacheable(cacheNames = CacheConfig.ACCOUNTS, key = "#id + ':' + #changeTag", sync = true)
+    @Transactional(readOnly = true)
+    public AccountDTO findById(Long id, String changeTag) {
+        return ReplicaRoutingDataSource.onPrimary(() -> load(id));
+    }
+
+    // Muda a cada alteração visível da conta ou dos seus lançamentos: accounts.version sobe com saldo, tipo
+    // e exclusão de lançamento. Só uma consulta pela chave primária, sem carregar nem montar a conta
+    @Transactional(readOnly = true)
+    public String changeTag(Long id) {
+        Long version = accountRepository.findVersionById(id)
+                .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + id));
+        return changeTag(id, version);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.ACCOUNTS_BY_USER, key = "#result.userId")
     @Transactional
     public AccountDTO create(AccountDTO accountDTO) {
         User user = userRepository.findById(accountDTO.getUserId())
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + accountDTO.getUserId()));
 
         Account account = new Account();
+        account.setAccountNumber(accountNumberAllocator.next());
         account.setUser(user);
         account.setBalance(accountDTO.getBalance() != null ? accountDTO.getBalance() : BigDecimal.ZERO);
         account.setAccountType(accountDTO.getAccountType() != null ? 
                 accountDTO.getAccountType() : Account.AccountType.CHECKING);
 
         Account savedAccount = accountRepository.save(account);
+        // Snapshot de abertura: o extrato nunca precisa varrer o histórico desta conta
+        balanceSnapshotService.record(savedAccount.getId(), savedAccount.getBalance(), savedAccount.getCreatedAt());
+        portfolioSummaryService.accountOpened(savedAccount.getId(), user.getId(),
+                savedAccount.getAccountType(), savedAccount.getBalance());
         return toDTO(savedAccount);
     }
 
+    // expectedTags nulo: sem pré-condição. Senão a versão atual precisa ser uma delas (If-Match)
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.ACCOUNTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.ACCOUNTS_BY_USER, key = "#result.userId")
+    })
     @Transactional
-    public AccountDTO update(Long id, AccountDTO accountDTO) {
-        Account account = accountRepository.findById(id)
+    public AccountDTO update(Long id, AccountDTO accountDTO, Collection<String> expectedTags) {
+        // Linha travada: o saldo movido no resumo da carteira é o mesmo que as transações concorrentes veem
+        Account account = accountRepository.findForUpdateById(id)
                 .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + id));
+        if (expectedTags != null && !expectedTags.contains(changeTag(id, account.getVersion()))) {
+            throw new PreconditionFailedException("Conta alterada desde a versão informada em If-Match: " + id);
+        }
 
-        if (accountDTO.getAccountType() != null) {
+        if (accountDTO.getAccountType() != null && accountDTO.getAccountType() != account.getAccountType()) {
+            portfolioSummaryService.accountTypeChanged(id, account.getUser().getId(), account.getAccountType(),
+                    accountDTO.getAccountType(), summaryBalance(account));
             account.setAccountType(accountDTO.getAccountType());
         }
 
         Account updatedAccount = accountRepository.save(account);
-        return toDTO(updatedAccount);
+        return withLedgerBalance(toDTO(updatedAccount));
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!accountRepository.existsById(id)) {
-            throw new RuntimeException("Conta não encontrada com ID: " + id);
+        Account account = accountRepository.findForUpdateById(id)
+                .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + id));
+        portfolioSummaryService.accountClosed(id, account.getUser().getId(), account.getAccountType(),
+                summaryBalance(account));
+        balanceSnapshotService.deleteByAccountId(id);
+        balanceLedger.deleteByAccountId(id);
+        accountRepository.delete(account);
+        evict(id, account.getUser().getId());
+    }
+
+    // Toda alteração de saldo (transações, lotes) invalida a conta e a listagem do titular
+    @EventListener
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        accountRepository.findUserIdById(event.accountId())
+                .ifPresent(userId -> evict(event.accountId(), userId));
+    }
+
+    // O cache é transaction-aware: dentro de uma transação a evicção só ocorre após o commit
+    private void evict(Long accountId, Long userId) {
+        cacheManager.getCache(CacheConfig.ACCOUNTS).evict(accountId);
+        cacheManager.getCache(CacheConfig.ACCOUNTS_BY_USER).evict(userId);
+    }
+
+    private AccountDTO load(Long id) {
+        return withLedgerBalance(accountRepository.findDTOById(id)
+                .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + id)));
+    }
+
+    // No LEDGER os créditos não passam pela linha da conta
+    private String changeTag(Long id, Long version) {
+        return balanceLedger.isEnabled() ? version + "." + balanceLedger.changeTag(id) : String.valueOf(version);
+    }
+
+    // No LEDGER o resumo da carteira só tem o saldo até o último checkpoint; o resto é somado na leitura
+    private BigDecimal summaryBalance(Account account) {
+        return balanceLedger.isEnabled()
+                ? balanceLedger.checkpointedBalancesOf(List.of(account.getId())).get(account.getId())
+                : account.getBalance();
+    }
+
+    // No modo livro-razão accounts.balance é só o saldo de abertura
+    private AccountDTO withLedgerBalance(AccountDTO account) {
+        if (balanceLedger.isEnabled()) {
+            account.setBalance(balanceLedger.balanceOf(account.getId()));
+        }
+        return account;
+    }
+
+    private List<AccountDTO> withLedgerBalances(List<AccountDTO> accounts) {
+        if (balanceLedger.isEnabled() && !accounts.isEmpty()) {
+            Map<Long, BigDecimal> balances = balanceLedger.balancesOf(accounts.stream().map(AccountDTO::getId).toList());
+            accounts.forEach(account -> account.setBalance(balances.get(account.getId())));
         }
-        accountRepository.deleteById(id);
+        return accounts;
     }
 
-    private AccountDTO toDTO(Account account) {
+    AccountDTO toDTO(Account account) {
         return new AccountDTO(
                 account.getId(),
                 account.getAccountNumber(),
@@ -0,0 +1,188 @@
+package com.fintech.service;
+
+import com.fintech.dto.AnalyticsBucketDTO;
+import com.fintech.dto.AnalyticsDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Transaction;
+import com.fintech.repository.ArchivedTransactionRepository;
+import com.fintech.repository.TransactionRepository;
+import com.fintech.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+// Totais e quantidades por tipo e período em todas as contas do usuário.
+// DATABASE: GROUP BY por dia e tipo no banco; semanas e meses são somados aqui sobre poucas linhas.
+// PARALLEL: para bancos onde a varredura agregada pesa demais (ex.: primário sob carga), as linhas vêm
+// em streaming e cada bloco é reduzido numa tarefa do ForkJoinPool enquanto o próximo é lido.
+@Service
+public class AnalyticsService {
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        static Granularity of(String value) {
+            for (Granularity granularity : values()) {
+                if (granularity.name().equalsIgnoreCase(value)) {
+                    return granularity;
+                }
+            }
+            throw new RuntimeException("Granularidade inválida: " + value + " (use day, week ou month)");
+        }
+
+        // Semanas começam na segunda-feira (ISO-8601)
+        LocalDate periodStart(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+    }
+
+    public enum Aggregation {
+        DATABASE, PARALLEL
+    }
+
+    private static final Comparator<BucketKey> BUCKET_ORDER = Comparator.comparing(BucketKey::periodStart)
+            .thenComparing(BucketKey::transactionType);
+
+    private final UserRepository userRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final Aggregation aggregation;
+    private final int chunkSize;
+
+    public AnalyticsService(UserRepository userRepository,
+                            TransactionRepository transactionRepository,
+                            ArchivedTransactionRepository archivedTransactionRepository,
+                            @Value("${fintech.analytics.aggregation:DATABASE}") Aggregation aggregation,
+                            @Value("${fintech.analytics.chunk-size:10000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.aggregation = aggregation;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional(readOnly = true)
+    public AnalyticsDTO analytics(Long userId, LocalDate from, LocalDate to, String granularity) {
+        Granularity period = Granularity.of(granularity);
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Data inicial deve ser anterior ou igual à data final");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Usuário não encontrado com ID: " + userId);
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        Map<BucketKey, Totals> totals = aggregation == Aggregation.PARALLEL
+                ? aggregateInParallel(userId, start, end, period)
+                : aggregateInDatabase(userId, start, end, period);
+
+        // periodStart da primeira semana ou mês pode ser anterior a 'from': só os dias da janela entram na soma
+        List<AnalyticsBucketDTO> buckets = totals.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(BUCKET_ORDER))
+                .map(entry -> new AnalyticsBucketDTO(entry.getKey().periodStart(), entry.getKey().transactionType(),
+                        entry.getValue().total, entry.getValue().count))
+                .toList();
+        return new AnalyticsDTO(userId, from, to, period.name().toLowerCase(), buckets);
+    }
+
+    Map<BucketKey, Totals> aggregateInDatabase(Long userId, LocalDateTime start, LocalDateTime end,
+                                               Granularity granularity) {
+        Map<BucketKey, Totals> totals = new HashMap<>();
+        // Transações arquivadas somam nos mesmos baldes
+        List<TransactionRepository.DailyTotalView> days = new ArrayList<>(
+                transactionRepository.sumDailyByUserId(userId, start, end));
+        days.addAll(archivedTransactionRepository.sumDailyByUserId(userId, start, end));
+        for (TransactionRepository.DailyTotalView day : days) {
+            BucketKey key = new BucketKey(granularity.periodStart(day.getEntryDate()), day.getTransactionType());
+            totals.computeIfAbsent(key, k -> new Totals()).add(day.getTotal(), day.getEntries());
+        }
+        return totals;
+    }
+
+    // Tarefas em voo limitadas: blocos já reduzidos são liberados em vez de acumular o histórico em memória
+    Map<BucketKey, Totals> aggregateInParallel(Long userId, LocalDateTime start, LocalDateTime end,
+                                               Granularity granularity) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<Map<BucketKey, Totals>>> inFlight = new ArrayDeque<>();
+        Map<BucketKey, Totals> totals = new HashMap<>();
+
+        try (Stream<TransactionDTO> rows = Stream.concat(
+                transactionRepository.streamByUserIdBetween(userId, start, end),
+                archivedTransactionRepository.streamByUserIdBetween(userId, start, end))) {
+            Iterator<TransactionDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                List<TransactionDTO> chunk = new ArrayList<>(chunkSize);
+                while (iterator.hasNext() && chunk.size() < chunkSize) {
+                    chunk.add(iterator.next());
+                }
+                inFlight.add(pool.submit(() -> reduce(chunk, granularity)));
+                if (inFlight.size() > maxInFlight) {
+                    merge(totals, inFlight.poll().join());
+                }
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            merge(totals, inFlight.poll().join());
+        }
+        return totals;
+    }
+
+    private static Map<BucketKey, Totals> reduce(List<TransactionDTO> chunk, Granularity granularity) {
+        Map<BucketKey, Totals> partial = new HashMap<>();
+        for (TransactionDTO transaction : chunk) {
+            BucketKey key = new BucketKey(granularity.periodStart(transaction.getTransactionDate().toLocalDate()),
+                    transaction.getTransactionType());
+            partial.computeIfAbsent(key, k -> new Totals()).add(transaction.getAmount(), 1);
+        }
+        return partial;
+    }
+
+    private static void merge(Map<BucketKey, Totals> totals, Map<BucketKey, Totals> partial) {
+        partial.forEach((key, value) -> totals.merge(key, value, (current, other) -> current.add(other.total, other.count)));
+    }
+
+    record BucketKey(LocalDate periodStart, Transaction.TransactionType transactionType) {
+    }
+
+    static final class Totals {
+        private BigDecimal total = BigDecimal.ZERO;
+        private long count;
+
+        private Totals add(BigDecimal amount, long entries) {
+            total = total.add(amount);
+            count += entries;
+            return this;
+        }
+
+        BigDecimal total() {
+            return total;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
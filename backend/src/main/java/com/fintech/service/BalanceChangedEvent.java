@@ -0,0 +1,10 @@
+package com.fintech.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Publicado dentro da transação que alterou o saldo; delta é negativo para débitos.
+// newBalance é nulo na estratégia LEDGER, em que o saldo só é conhecido na leitura. occurredAt é o
+// transactionDate dos lançamentos gravados junto, e o dia dele é a chave do snapshot de saldo
+public record BalanceChangedEvent(Long accountId, BigDecimal delta, BigDecimal newBalance, LocalDateTime occurredAt) {
+}
@@ -0,0 +1,155 @@
+package com.fintech.service;
+
+import com.fintech.model.BalanceCheckpoint;
+import com.fintech.repository.BalanceCheckpointRepository;
+import com.fintech.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Estratégia LEDGER: transações são lançamentos imutáveis e accounts.balance guarda só o saldo de abertura.
+// O saldo é o último checkpoint mais os lançamentos posteriores; checkpoints periódicos das contas com
+// movimento mantêm essa soma curta, sem nenhuma escrita na linha da conta a cada lançamento. O resumo da
+// carteira também só recebe os lançamentos no checkpoint (LedgerCheckpointEvent).
+@Component
+@Slf4j
+public class BalanceLedger {
+
+    // Limite superior para "saldo atual": inclui lançamentos de nós com relógio adiantado
+    private static final LocalDateTime OPEN_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int CHECKPOINT_CHUNK = 500;
+
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Duration checkpointLag;
+
+    public BalanceLedger(BalanceCheckpointRepository balanceCheckpointRepository,
+                         TransactionRepository transactionRepository,
+                         PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${fintech.balance.update-strategy:ATOMIC}") BalanceUpdater.Strategy strategy,
+                         @Value("${fintech.ledger.checkpoint-lag:1m}") Duration checkpointLag) {
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.enabled = strategy == BalanceUpdater.Strategy.LEDGER;
+        this.checkpointLag = checkpointLag;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public BigDecimal balanceOf(Long accountId) {
+        return balanceAt(accountId, OPEN_END);
+    }
+
+    public Map<Long, BigDecimal> balancesOf(Collection<Long> accountIds) {
+        return balancesAt(accountIds, OPEN_END);
+    }
+
+    // Saldo considerando os lançamentos anteriores a 'at'
+    public BigDecimal balanceAt(Long accountId, LocalDateTime at) {
+        BigDecimal balance = balancesAt(List.of(accountId), at).get(accountId);
+        if (balance == null) {
+            throw new RuntimeException("Conta não encontrada com ID: " + accountId);
+        }
+        return balance;
+    }
+
+    private Map<Long, BigDecimal> balancesAt(Collection<Long> accountIds, LocalDateTime at) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return balances;
+        }
+        for (BalanceCheckpointRepository.LedgerBalanceView view
+                : balanceCheckpointRepository.findBalancesAt(accountIds, at, StatementService.CREDIT_TYPES)) {
+            balances.put(view.getAccountId(), view.getBalance());
+        }
+        return balances;
+    }
+
+    // Saldo até o último checkpoint de cada conta: a parte que já está no resumo da carteira
+    public Map<Long, BigDecimal> checkpointedBalancesOf(Collection<Long> accountIds) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return balances;
+        }
+        for (BalanceCheckpointRepository.LedgerBalanceView view
+                : balanceCheckpointRepository.findCheckpointedBalances(accountIds)) {
+            balances.put(view.getAccountId(), view.getBalance());
+        }
+        return balances;
+    }
+
+    // O resto: lançamentos das contas do usuário que o próximo checkpoint ainda vai levar ao resumo
+    public List<BalanceCheckpointRepository.PendingEntriesView> pendingEntriesOf(Long userId) {
+        return balanceCheckpointRepository.findPendingEntriesByUserId(userId, StatementService.CREDIT_TYPES);
+    }
+
+    // Créditos não tocam a linha da conta: o estado do livro-razão é o último checkpoint mais quantos
+    // lançamentos vieram depois dele (só cresce, lançamentos não são apagados nem arquivados neste modo)
+    public String changeTag(Long accountId) {
+        LocalDateTime since = balanceCheckpointRepository.findLatestAsOfByAccountId(accountId).orElse(BEGINNING);
+        return since.toEpochSecond(ZoneOffset.UTC) + "." + transactionRepository.countByAccountIdSince(accountId, since);
+    }
+
+    // A defasagem deixa de fora lançamentos cujas transações ainda podem estar abertas:
+    // um lançamento datado antes do corte mas confirmado depois dele ficaria fora do checkpoint
+    @Scheduled(fixedDelayString = "${fintech.ledger.checkpoint-interval:PT5M}")
+    public void checkpoint() {
+        if (enabled) {
+            checkpoint(LocalDateTime.now().minus(checkpointLag));
+        }
+    }
+
+    // Cada execução cobre o intervalo desde o corte anterior; contas sem movimento mantêm o checkpoint antigo
+    int checkpoint(LocalDateTime cutoff) {
+        LocalDateTime from = balanceCheckpointRepository.findLatestAsOf().orElse(BEGINNING);
+        if (!cutoff.isAfter(from)) {
+            return 0;
+        }
+        List<Long> accountIds = transactionRepository.findAccountIdsWithEntriesBetween(from, cutoff);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int start = 0; start < accountIds.size(); start += CHECKPOINT_CHUNK) {
+            List<Long> chunk = accountIds.subList(start, Math.min(start + CHECKPOINT_CHUNK, accountIds.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, BigDecimal> previous = checkpointedBalancesOf(chunk);
+                Set<Map.Entry<Long, BigDecimal>> balances = balancesAt(chunk, cutoff).entrySet();
+                balanceCheckpointRepository.saveAll(balances.stream()
+                        .map(entry -> new BalanceCheckpoint(null, entry.getKey(), cutoff, entry.getValue(), now))
+                        .toList());
+                Map<Long, BigDecimal> deltas = new HashMap<>();
+                balances.forEach(entry -> deltas.put(entry.getKey(),
+                        entry.getValue().subtract(previous.getOrDefault(entry.getKey(), BigDecimal.ZERO))));
+                eventPublisher.publishEvent(new LedgerCheckpointEvent(from, cutoff, deltas));
+            });
+        }
+        log.debug("Checkpoint do livro-razão em {}: {} contas", cutoff, accountIds.size());
+        return accountIds.size();
+    }
+
+    public void deleteByAccountId(Long accountId) {
+        balanceCheckpointRepository.deleteByAccountId(accountId);
+    }
+}
@@ -0,0 +1,48 @@
+package com.fintech.service;
+
+import com.fintech.model.BalanceSnapshot;
+import com.fintech.repository.BalanceSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotService {
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    // Roda na transação que alterou o saldo; a linha da conta já está travada,
+    // então o upsert do snapshot do dia é serializado por conta
+    @EventListener
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        // Na estratégia LEDGER os extratos usam os checkpoints do livro-razão
+        if (event.newBalance() == null) {
+            return;
+        }
+        record(event.accountId(), event.newBalance(), event.occurredAt());
+    }
+
+    public void record(Long accountId, BigDecimal closingBalance, LocalDateTime occurredAt) {
+        LocalDate date = occurredAt.toLocalDate();
+        if (balanceSnapshotRepository.updateClosingBalance(accountId, date, closingBalance, occurredAt) == 0) {
+            balanceSnapshotRepository.save(new BalanceSnapshot(null, accountId, date, closingBalance, occurredAt));
+        }
+    }
+
+    // Saldo de fechamento do último dia com movimento antes de 'date'
+    public Optional<BigDecimal> closingBalanceBefore(Long accountId, LocalDate date) {
+        return balanceSnapshotRepository
+                .findFirstByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(accountId, date)
+                .map(BalanceSnapshot::getClosingBalance);
+    }
+
+    public void deleteByAccountId(Long accountId) {
+        balanceSnapshotRepository.deleteByAccountId(accountId);
+    }
+}
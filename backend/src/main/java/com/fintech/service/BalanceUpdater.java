@@ -0,0 +1,228 @@
+package com.fintech.service;
+
+import com.fintech.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Único ponto de alteração de saldo; deve ser chamado dentro de uma transação.
+// Toda alteração publica um BalanceChangedEvent na mesma transação.
+@Component
+@Slf4j
+public class BalanceUpdater {
+
+    public enum Strategy {
+        // UPDATE condicional no banco: sem leitura prévia, o próprio comando valida o saldo
+        ATOMIC,
+        // Leitura com versão + UPDATE condicionado à versão, com número limitado de tentativas
+        OPTIMISTIC,
+        // Lock por conta dentro da JVM, mantido até o fim da transação
+        STRIPED,
+        // Livro-razão: nenhuma escrita em accounts; o saldo vem de checkpoints + lançamentos (BalanceLedger).
+        // Créditos não travam nada; débitos travam a linha da conta só para validar o saldo
+        LEDGER
+    }
+
+    private static final int STRIPES = 256;
+
+    private final AccountRepository accountRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionMetrics metrics;
+    private final BalanceLedger balanceLedger;
+    private final Strategy strategy;
+    private final int maxAttempts;
+    private final ReentrantLock[] stripes;
+
+    public BalanceUpdater(AccountRepository accountRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          TransactionMetrics metrics,
+                          BalanceLedger balanceLedger,
+                          @Value("${fintech.balance.update-strategy:ATOMIC}") Strategy strategy,
+                          @Value("${fintech.balance.optimistic-max-attempts:16}") int maxAttempts) {
+        this.accountRepository = accountRepository;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+        this.balanceLedger = balanceLedger;
+        this.strategy = strategy;
+        this.maxAttempts = maxAttempts;
+        this.stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public BigDecimal credit(Long accountId, BigDecimal amount, LocalDateTime occurredAt) {
+        BigDecimal newBalance = switch (strategy) {
+            case ATOMIC -> {
+                if (accountRepository.credit(accountId, amount) == 0) {
+                    throw accountNotFound(accountId);
+                }
+                yield currentBalance(accountId);
+            }
+            case OPTIMISTIC -> applyOptimistic(accountId, amount, false);
+            case STRIPED -> applyStriped(accountId, amount, false);
+            case LEDGER -> {
+                if (!accountRepository.existsById(accountId)) {
+                    throw accountNotFound(accountId);
+                }
+                yield null;
+            }
+        };
+        eventPublisher.publishEvent(new BalanceChangedEvent(accountId, amount, newBalance, occurredAt));
+        return newBalance;
+    }
+
+    public BigDecimal debit(Long accountId, BigDecimal amount, LocalDateTime occurredAt) {
+        BigDecimal newBalance = switch (strategy) {
+            case ATOMIC -> {
+                if (accountRepository.debitIfSufficient(accountId, amount) == 0) {
+                    // Nenhuma linha alterada: conta inexistente ou saldo insuficiente
+                    throw new InsufficientFundsException(currentBalance(accountId));
+                }
+                yield currentBalance(accountId);
+            }
+            case OPTIMISTIC -> applyOptimistic(accountId, amount, true);
+            case STRIPED -> applyStriped(accountId, amount, true);
+            case LEDGER -> {
+                newBalance(lockForUpdate(accountId), amount, true);
+                yield null;
+            }
+        };
+        eventPublisher.publishEvent(new BalanceChangedEvent(accountId, amount.negate(), newBalance, occurredAt));
+        return newBalance;
+    }
+
+    private BigDecimal applyOptimistic(Long accountId, BigDecimal amount, boolean debit) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            AccountRepository.BalanceView current = accountRepository.findBalanceAndVersionById(accountId)
+                    .orElseThrow(() -> accountNotFound(accountId));
+            BigDecimal newBalance = newBalance(current.getBalance(), amount, debit);
+
+            if (accountRepository.updateBalanceIfVersion(accountId, newBalance, current.getVersion()) == 1) {
+                return newBalance;
+            }
+            log.debug("Conflito de versão na conta {} (tentativa {}/{})", accountId, attempt, maxAttempts);
+            metrics.optimisticRetry();
+            // Backoff curto e aleatório para não sincronizar as tentativas concorrentes
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(50_000L << Math.min(attempt, 6)));
+        }
+        metrics.optimisticConflict();
+        throw new RuntimeException("Conflito de concorrência ao atualizar saldo da conta " + accountId
+                + ". Tente novamente.");
+    }
+
+    // Trava a conta até o fim da transação e devolve o saldo atual; usar com overwrite()
+    public BigDecimal lockForUpdate(Long accountId) {
+        if (strategy == Strategy.STRIPED) {
+            lockStripe(stripeIndex(accountId));
+        }
+        BigDecimal balance = accountRepository.findForUpdateById(accountId)
+                .orElseThrow(() -> accountNotFound(accountId))
+                .getBalance();
+        // Com a linha travada nenhum outro débito entra; créditos concorrentes só aumentam o saldo
+        return strategy == Strategy.LEDGER ? balanceLedger.balanceOf(accountId) : balance;
+    }
+
+    // Trava várias contas sempre na mesma ordem global: stripes pelo índice, linhas pelo id.
+    // Assim A→B e B→A concorrentes nunca esperam um pelo outro em ciclo
+    public Map<Long, BigDecimal> lockForUpdate(Collection<Long> accountIds) {
+        TreeSet<Long> ordered = new TreeSet<>(accountIds);
+        if (strategy == Strategy.STRIPED) {
+            ordered.stream()
+                    .mapToInt(this::stripeIndex)
+                    .distinct()
+                    .sorted()
+                    .forEach(this::lockStripe);
+        }
+        Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        for (Long accountId : ordered) {
+            balances.put(accountId, accountRepository.findForUpdateById(accountId)
+                    .orElseThrow(() -> accountNotFound(accountId))
+                    .getBalance());
+        }
+        if (strategy == Strategy.LEDGER) {
+            balances.putAll(balanceLedger.balancesOf(ordered));
+        }
+        return balances;
+    }
+
+    public void overwrite(Long accountId, BigDecimal openingBalance, BigDecimal newBalance, LocalDateTime occurredAt) {
+        if (strategy == Strategy.LEDGER) {
+            // Os lançamentos inseridos pelo chamador já são o novo saldo
+            eventPublisher.publishEvent(new BalanceChangedEvent(
+                    accountId, newBalance.subtract(openingBalance), null, occurredAt));
+            return;
+        }
+        accountRepository.updateBalance(accountId, newBalance);
+        eventPublisher.publishEvent(new BalanceChangedEvent(
+                accountId, newBalance.subtract(openingBalance), newBalance, occurredAt));
+    }
+
+    private BigDecimal applyStriped(Long accountId, BigDecimal amount, boolean debit) {
+        lockStripe(stripeIndex(accountId));
+        BigDecimal newBalance = newBalance(currentBalance(accountId), amount, debit);
+        accountRepository.updateBalance(accountId, newBalance);
+        return newBalance;
+    }
+
+    private int stripeIndex(Long accountId) {
+        return Math.floorMod(accountId.hashCode(), STRIPES);
+    }
+
+    private void lockStripe(int stripeIndex) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Atualização de saldo exige uma transação ativa");
+        }
+
+        ReentrantLock lock = stripes[stripeIndex];
+        // Só mede quando há disputa: o caminho sem espera não lê o relógio
+        if (!lock.tryLock()) {
+            long waitStart = System.nanoTime();
+            lock.lock();
+            metrics.stripeLockWait(System.nanoTime() - waitStart);
+        }
+        // O lock só é liberado após commit/rollback, senão outra thread leria o saldo antigo
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private BigDecimal newBalance(BigDecimal currentBalance, BigDecimal amount, boolean debit) {
+        if (!debit) {
+            return currentBalance.add(amount);
+        }
+        if (currentBalance.compareTo(amount) < 0) {
+            throw new InsufficientFundsException(currentBalance);
+        }
+        return currentBalance.subtract(amount);
+    }
+
+    private BigDecimal currentBalance(Long accountId) {
+        return accountRepository.findBalanceById(accountId)
+                .orElseThrow(() -> accountNotFound(accountId));
+    }
+
+    private RuntimeException accountNotFound(Long accountId) {
+        return new RuntimeException("Conta não encontrada com ID: " + accountId);
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintech.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom thread-safe: mightContain == false garante que a chave nunca foi inserida
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.max(1, (bits + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    void put(String key) {
+        long hash1 = mix(fnv1a(key));
+        long hash2 = mix(hash1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            words.getAndAccumulate((int) (bit >>> 6), 1L << bit, (current, mask) -> current | mask);
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash1 = mix(fnv1a(key));
+        long hash2 = mix(hash1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hash sobre os chars, sem alocar; o mix espalha os bits para o duplo hashing
+    private static long fnv1a(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    // Finalizador do MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,78 @@
+package com.fintech.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Cursores de paginação keyset: o cliente só enxerga um token opaco
+final class CursorCodec {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    static int pageSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (requested < 1) {
+            throw new InvalidPageRequestException("Tamanho de página deve ser positivo");
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    static String encodeId(Long id) {
+        return encode(String.valueOf(id));
+    }
+
+    static Long decodeId(String cursor) {
+        try {
+            return Long.valueOf(decode(cursor));
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    static String encodeDateAndId(LocalDateTime date, Long id) {
+        return encode(date + SEPARATOR + id);
+    }
+
+    static DateAndId decodeDateAndId(String cursor) {
+        String value = decode(cursor);
+        int index = value.indexOf(SEPARATOR);
+        if (index < 0) {
+            throw invalid();
+        }
+        try {
+            return new DateAndId(
+                    LocalDateTime.parse(value.substring(0, index)),
+                    Long.valueOf(value.substring(index + 1)));
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    private static InvalidPageRequestException invalid() {
+        return new InvalidPageRequestException("Cursor de paginação inválido");
+    }
+
+    record DateAndId(LocalDateTime date, Long id) {
+    }
+}
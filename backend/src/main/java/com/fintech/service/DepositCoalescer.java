@@ -0,0 +1,179 @@
+package com.fintech.service;
+
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Group commit de depósitos: requisições concorrentes para a mesma conta entram num lote aberto.
+// A primeira do lote espera até o lote encher ou o prazo vencer e grava todas numa única transação,
+// com um só UPDATE de saldo. Cada requisição só retorna depois do commit do seu lote.
+// Só um lote por conta grava por vez: enquanto o anterior grava, o próximo continua crescendo
+// em vez de disputar o lock da linha da conta.
+@Component
+public class DepositCoalescer {
+
+    @FunctionalInterface
+    public interface Flusher {
+        // Grava o lote numa transação e devolve as transações criadas, na mesma ordem dos depósitos
+        List<TransactionDTO> flush(Long accountId, List<TransactionDTO> deposits);
+    }
+
+    private final TransactionMetrics metrics;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ConcurrentHashMap<Long, Batch> openBatches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Batch> flushingBatches = new ConcurrentHashMap<>();
+
+    public DepositCoalescer(TransactionMetrics metrics,
+                            @Value("${fintech.deposits.coalescing.enabled:false}") boolean enabled,
+                            @Value("${fintech.deposits.coalescing.max-batch-size:200}") int maxBatchSize,
+                            @Value("${fintech.deposits.coalescing.max-delay:2ms}") Duration maxDelay) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    // Dentro de uma transação do chamador (ex.: Idempotency-Key) o depósito precisa fazer parte dela
+    public boolean accepts(TransactionDTO transactionDTO) {
+        return enabled
+                && transactionDTO.getTransactionType() == Transaction.TransactionType.DEPOSIT
+                && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    public TransactionDTO submit(TransactionDTO deposit, Flusher flusher) {
+        Long accountId = deposit.getAccountId();
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(accountId, id -> new Batch(id));
+            int position = batch.add(deposit);
+            if (position < 0) {
+                // Lote fechado entre o lookup e o add: entra no próximo
+                continue;
+            }
+            if (position == 0) {
+                batch.awaitFullOrDeadline();
+                // Lote ainda aberto enquanto o anterior grava: continua recebendo depósitos
+                Batch flushing = flushingBatches.get(accountId);
+                if (flushing != null && flushing != batch) {
+                    flushing.awaitCommit();
+                }
+                batch.closeIfOpen();
+                if (batch.predecessor != null) {
+                    batch.predecessor.awaitCommit();
+                    // Sem isso cada lote manteria vivo toda a cadeia de lotes anteriores
+                    batch.predecessor = null;
+                }
+                batch.flush(flusher);
+            }
+            return batch.result(position);
+        }
+    }
+
+    private final class Batch {
+        private final Long accountId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition full = lock.newCondition();
+        private final List<TransactionDTO> deposits = new ArrayList<>();
+        private final CompletableFuture<List<TransactionDTO>> committed = new CompletableFuture<>();
+        private boolean closed;
+        // Lote da mesma conta que ainda gravava quando este fechou
+        private Batch predecessor;
+
+        private Batch(Long accountId) {
+            this.accountId = accountId;
+        }
+
+        private int add(TransactionDTO deposit) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return -1;
+                }
+                deposits.add(deposit);
+                if (deposits.size() == maxBatchSize) {
+                    close();
+                    full.signal();
+                }
+                return deposits.size() - 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void awaitFullOrDeadline() {
+            lock.lock();
+            try {
+                long remaining = maxDelayNanos;
+                while (!closed && remaining > 0) {
+                    remaining = full.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void closeIfOpen() {
+            lock.lock();
+            try {
+                if (!closed) {
+                    close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Chamado com o lock: depois de fechado o lote não recebe mais depósitos
+        private void close() {
+            closed = true;
+            predecessor = flushingBatches.put(accountId, this);
+            openBatches.remove(accountId, this);
+        }
+
+        // Espera o commit (ou a falha) sem propagar o resultado: só serve para não disputar a linha
+        private void awaitCommit() {
+            committed.handle((created, failure) -> null).join();
+        }
+
+        private void flush(Flusher flusher) {
+            try {
+                List<TransactionDTO> created = flusher.flush(accountId, List.copyOf(deposits));
+                metrics.coalescedBatch(deposits.size());
+                committed.complete(created);
+            } catch (Throwable e) {
+                // Uma falha desfaz o lote inteiro: todos recebem o erro, nenhum depósito foi gravado
+                committed.completeExceptionally(e);
+                if (e instanceof Error error) {
+                    throw error;
+                }
+            } finally {
+                flushingBatches.remove(accountId, this);
+            }
+        }
+
+        private TransactionDTO result(int position) {
+            try {
+                return committed.join().get(position);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.fintech.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.model.IdempotencyKey;
+import com.fintech.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Criações repetidas com a mesma Idempotency-Key devolvem a resposta da primeira execução.
+// Réplicas na mesma instância saem do cache em memória; a chave gravada na tabela idempotency_keys,
+// na mesma transação da operação, garante que só uma instância aplica a operação.
+// Requisições sem a chave não passam por aqui.
+@Component
+@Slf4j
+public class IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, StoredResponse> responses;
+    // Execução em andamento por chave: requisições concorrentes esperam a primeira em vez de repetir
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${fintech.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${fintech.idempotency.max-cached:100000}") long maxCached) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxCached)
+                .build();
+    }
+
+    public <T> T execute(String key, String operation, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres");
+        }
+        String requestHash = requestHash(operation, request);
+
+        StoredResponse stored = responses.getIfPresent(key);
+        if (stored == null) {
+            CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, execution);
+            if (running != null) {
+                stored = await(running);
+            } else {
+                try {
+                    stored = executeOnce(key, operation, requestHash, action);
+                    responses.put(key, stored);
+                    execution.complete(stored);
+                } catch (RuntimeException e) {
+                    execution.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, execution);
+                }
+            }
+        }
+
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new RuntimeException("Idempotency-Key já utilizada com outra requisição");
+        }
+        return stored.read(objectMapper, responseType);
+    }
+
+    @Scheduled(fixedDelayString = "${fintech.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status ->
+                idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+        if (removed != null && removed > 0) {
+            log.debug("Removidas {} chaves de idempotência expiradas", removed);
+        }
+    }
+
+    private StoredResponse executeOnce(String key, String operation, String requestHash, Supplier<?> action) {
+        // Outra instância (ou uma execução anterior já fora do cache) pode ter gravado a chave
+        IdempotencyKey existing = idempotencyKeyRepository.findById(key).orElse(null);
+        if (existing != null) {
+            return StoredResponse.of(existing);
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                idempotencyKeyRepository.insert(key, operation, requestHash, LocalDateTime.now());
+                String responseBody = write(action.get());
+                idempotencyKeyRepository.saveResponse(key, responseBody);
+                return new StoredResponse(requestHash, responseBody);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Perdeu a corrida para outra instância: a operação foi desfeita junto com o INSERT
+            return idempotencyKeyRepository.findById(key)
+                    .map(StoredResponse::of)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String requestHash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao calcular hash da requisição", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar resposta idempotente", e);
+        }
+    }
+
+    // Guarda o JSON, não o objeto: cada réplica recebe uma cópia nova do DTO
+    private record StoredResponse(String requestHash, String responseBody) {
+
+        static StoredResponse of(IdempotencyKey idempotencyKey) {
+            return new StoredResponse(idempotencyKey.getRequestHash(), idempotencyKey.getResponseBody());
+        }
+
+        <T> T read(ObjectMapper objectMapper, Class<T> responseType) {
+            try {
+                return objectMapper.readValue(responseBody, responseType);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Falha ao ler resposta idempotente", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.fintech.service;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class InsufficientFundsException extends RuntimeException {
+
+    private final BigDecimal currentBalance;
+
+    public InsufficientFundsException(String message, BigDecimal currentBalance) {
+        super(message);
+        this.currentBalance = currentBalance;
+    }
+
+    public InsufficientFundsException(BigDecimal currentBalance) {
+        this("Saldo insuficiente. Saldo atual: " + currentBalance, currentBalance);
+    }
+}
@@ -0,0 +1,13 @@
+package com.fintech.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Cursor malformado ou adulterado, ou tamanho de página inválido: erro do cliente, não do servidor
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageRequestException extends RuntimeException {
+
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
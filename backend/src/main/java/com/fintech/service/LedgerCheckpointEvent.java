@@ -0,0 +1,10 @@
+package com.fintech.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Publicado na transação que grava os checkpoints de um bloco de contas; balanceDeltas é o saldo do novo
+// checkpoint menos o do anterior (ou o de abertura), e os lançamentos cobertos estão entre from e cutoff
+public record LedgerCheckpointEvent(LocalDateTime from, LocalDateTime cutoff, Map<Long, BigDecimal> balanceDeltas) {
+}
@@ -0,0 +1,303 @@
+package com.fintech.service;
+
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.PortfolioSummaryDTO;
+import com.fintech.model.Account;
+import com.fintech.model.PortfolioSummary;
+import com.fintech.repository.AccountRepository;
+import com.fintech.repository.BalanceCheckpointRepository;
+import com.fintech.repository.PortfolioSummaryRepository;
+import com.fintech.repository.TransactionRepository;
+import com.fintech.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Resumo da carteira por usuário e tipo de conta, mantido na mesma transação de cada alteração de saldo
+// e de cada abertura/encerramento de conta. As variações da transação são acumuladas e aplicadas
+// logo antes do commit, em ordem de (usuário, tipo): transferências cruzadas entre dois usuários
+// nunca travam as linhas em ordens opostas, e a linha do usuário fica travada só até o commit.
+// Usuários nascem com as linhas zeradas; os anteriores ao resumo (DataLoader, bancos existentes) são
+// reconstruídos a partir das contas na inicialização, então o caminho quente nunca cria linhas.
+// No LEDGER os lançamentos não passam pela linha do usuário: as linhas ficam com o saldo até o último
+// checkpoint de cada conta, que as acrescenta ao gravá-lo, e a leitura soma os lançamentos posteriores.
+@Service
+@Slf4j
+public class PortfolioSummaryService {
+
+    private static final Comparator<SummaryKey> KEY_ORDER = Comparator.comparing(SummaryKey::userId)
+            .thenComparing(SummaryKey::accountType);
+
+    private final PortfolioSummaryRepository portfolioSummaryRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final BalanceLedger balanceLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+
+    public PortfolioSummaryService(PortfolioSummaryRepository portfolioSummaryRepository,
+                                   AccountRepository accountRepository,
+                                   TransactionRepository transactionRepository,
+                                   UserRepository userRepository,
+                                   BalanceLedger balanceLedger,
+                                   PlatformTransactionManager transactionManager) {
+        this.portfolioSummaryRepository = portfolioSummaryRepository;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.balanceLedger = balanceLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public PortfolioSummaryDTO summary(Long userId) {
+        List<PortfolioSummary> rows = portfolioSummaryRepository.findByUserId(userId);
+        if (rows.isEmpty()) {
+            if (!userRepository.existsById(userId)) {
+                throw new RuntimeException("Usuário não encontrado com ID: " + userId);
+            }
+            createRowsIfMissing(userId);
+            rows = portfolioSummaryRepository.findByUserId(userId);
+        }
+        if (balanceLedger.isEnabled()) {
+            // Linhas e lançamentos pendentes no mesmo snapshot: um checkpoint no meio não conta nada duas vezes
+            return snapshotTemplate.execute(status -> summary(userId, portfolioSummaryRepository.findByUserId(userId),
+                    balanceLedger.pendingEntriesOf(userId)));
+        }
+        return summary(userId, rows, List.of());
+    }
+
+    private PortfolioSummaryDTO summary(Long userId, List<PortfolioSummary> rows,
+                                        List<BalanceCheckpointRepository.PendingEntriesView> pendingEntries) {
+        Map<Account.AccountType, BigDecimal> byType = new EnumMap<>(Account.AccountType.class);
+        BigDecimal total = BigDecimal.ZERO;
+        long accountCount = 0;
+        LocalDateTime lastTransactionAt = null;
+        for (PortfolioSummary row : rows) {
+            byType.put(row.getAccountType(), row.getBalance());
+            total = total.add(row.getBalance());
+            accountCount += row.getAccountCount();
+            if (row.getLastTransactionAt() != null
+                    && (lastTransactionAt == null || row.getLastTransactionAt().isAfter(lastTransactionAt))) {
+                lastTransactionAt = row.getLastTransactionAt();
+            }
+        }
+        for (BalanceCheckpointRepository.PendingEntriesView entries : pendingEntries) {
+            byType.merge(entries.getAccountType(), entries.getBalance(), BigDecimal::add);
+            total = total.add(entries.getBalance());
+            if (lastTransactionAt == null || entries.getLastTransactionAt().isAfter(lastTransactionAt)) {
+                lastTransactionAt = entries.getLastTransactionAt();
+            }
+        }
+        return new PortfolioSummaryDTO(userId, total, byType, accountCount, lastTransactionAt);
+    }
+
+    // Chamado depois da alteração de saldo: a linha da conta já está travada, então o tipo lido
+    // é o mesmo que uma mudança de tipo concorrente vai considerar
+    @EventListener
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        if (!balanceLedger.isEnabled()) {
+            pending().add(event.accountId(), event.delta(), 0, event.occurredAt());
+        }
+    }
+
+    // LEDGER: os lançamentos do bloco entram no resumo na transação que grava os checkpoints. A conta é
+    // travada antes de ler o tipo, como numa mudança de tipo ou encerramento: o que um deles move ou tira é
+    // sempre o saldo até o checkpoint que ele de fato viu. Contas excluídas nesse meio tempo ficam de fora
+    @EventListener
+    public void onLedgerCheckpoint(LedgerCheckpointEvent event) {
+        Map<Long, LocalDateTime> lastEntries = new HashMap<>();
+        for (TransactionRepository.LastEntryView last : transactionRepository.findLastEntryDatesBetween(
+                event.balanceDeltas().keySet(), event.from(), event.cutoff())) {
+            lastEntries.put(last.getAccountId(), last.getLastTransactionAt());
+        }
+        PendingDeltas pending = pending();
+        for (Account account : accountRepository.findAllForUpdateByIdIn(event.balanceDeltas().keySet())) {
+            pending.add(account.getId(), new SummaryKey(account.getUser().getId(), account.getAccountType()),
+                    event.balanceDeltas().get(account.getId()), 0, lastEntries.get(account.getId()));
+        }
+    }
+
+    // Na transação que cria o usuário: ninguém mais enxerga o usuário, então não há disputa pelas linhas
+    public void userCreated(Long userId) {
+        portfolioSummaryRepository.saveAll(emptyRows(userId).values());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Long> userIds = portfolioSummaryRepository.findUserIdsWithoutSummary();
+        userIds.forEach(this::createRowsIfMissing);
+        if (!userIds.isEmpty()) {
+            log.info("Resumo da carteira reconstruído para {} usuários", userIds.size());
+        }
+    }
+
+    public void accountOpened(Long accountId, Long userId, Account.AccountType accountType, BigDecimal balance) {
+        pending().add(accountId, new SummaryKey(userId, accountType), balance, 1, null);
+    }
+
+    public void accountClosed(Long accountId, Long userId, Account.AccountType accountType, BigDecimal balance) {
+        pending().add(accountId, new SummaryKey(userId, accountType), balance.negate(), -1, null);
+    }
+
+    public void accountTypeChanged(Long accountId, Long userId, Account.AccountType from, Account.AccountType to,
+                                   BigDecimal balance) {
+        PendingDeltas pending = pending();
+        pending.add(accountId, new SummaryKey(userId, from), balance.negate(), -1, null);
+        pending.add(accountId, new SummaryKey(userId, to), balance, 1, null);
+    }
+
+    public void deleteByUserId(Long userId) {
+        portfolioSummaryRepository.deleteByUserId(userId);
+    }
+
+    private PendingDeltas pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Atualização do resumo da carteira exige uma transação ativa");
+        }
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingDeltas created = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    apply(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PortfolioSummaryService.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private void apply(PendingDeltas pending) {
+        Set<Long> rebuiltUsers = new HashSet<>();
+        for (Map.Entry<SummaryKey, Delta> entry : pending.deltas.entrySet()) {
+            SummaryKey key = entry.getKey();
+            Delta delta = entry.getValue();
+            if (delta.isEmpty() || rebuiltUsers.contains(key.userId())) {
+                continue;
+            }
+            if (applyDelta(key, delta) == 0) {
+                // Só para contas gravadas por fora dos serviços depois da inicialização. A reconstrução
+                // já inclui tudo o que esta transação alterou nas contas do usuário
+                insertRows(key.userId());
+                rebuiltUsers.add(key.userId());
+            }
+        }
+    }
+
+    private int applyDelta(SummaryKey key, Delta delta) {
+        return delta.lastTransactionAt == null
+                ? portfolioSummaryRepository.applyDelta(key.userId(), key.accountType(), delta.balance, delta.count)
+                : portfolioSummaryRepository.applyDeltaWithTransaction(key.userId(), key.accountType(),
+                        delta.balance, delta.count, delta.lastTransactionAt);
+    }
+
+    // Se outra transação criou as linhas primeiro, a restrição única rejeita estas e as dela valem
+    private void createRowsIfMissing(Long userId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (portfolioSummaryRepository.findByUserId(userId).isEmpty()) {
+                    insertRows(userId);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Resumo da carteira do usuário {} criado por outra transação", userId);
+        }
+    }
+
+    // Linhas de todos os tipos de uma vez, a partir das contas como a transação corrente as vê
+    private void insertRows(Long userId) {
+        portfolioSummaryRepository.saveAllAndFlush(rebuild(userId));
+    }
+
+    private List<PortfolioSummary> rebuild(Long userId) {
+        List<AccountDTO> accounts = accountRepository.findDTOsByUserId(userId);
+        Map<Long, BigDecimal> ledgerBalances = balanceLedger.isEnabled()
+                ? balanceLedger.checkpointedBalancesOf(accounts.stream().map(AccountDTO::getId).toList())
+                : Map.of();
+        Map<Account.AccountType, PortfolioSummary> rows = emptyRows(userId);
+        for (AccountDTO account : accounts) {
+            PortfolioSummary row = rows.get(account.getAccountType());
+            row.setBalance(row.getBalance().add(ledgerBalances.getOrDefault(account.getId(), account.getBalance())));
+            row.setAccountCount(row.getAccountCount() + 1);
+        }
+        for (TransactionRepository.LastTransactionView last
+                : transactionRepository.findLastTransactionDatesByUserId(userId)) {
+            rows.get(last.getAccountType()).setLastTransactionAt(last.getLastTransactionAt());
+        }
+        return List.copyOf(rows.values());
+    }
+
+    private Map<Account.AccountType, PortfolioSummary> emptyRows(Long userId) {
+        Map<Account.AccountType, PortfolioSummary> rows = new EnumMap<>(Account.AccountType.class);
+        for (Account.AccountType type : Account.AccountType.values()) {
+            rows.put(type, new PortfolioSummary(null, userId, type, BigDecimal.ZERO, 0L, null));
+        }
+        return rows;
+    }
+
+    private record SummaryKey(Long userId, Account.AccountType accountType) {
+    }
+
+    private static final class Delta {
+        private BigDecimal balance = BigDecimal.ZERO;
+        private long count;
+        private LocalDateTime lastTransactionAt;
+
+        private boolean isEmpty() {
+            return balance.signum() == 0 && count == 0 && lastTransactionAt == null;
+        }
+    }
+
+    // Variações da transação corrente; o dono de cada conta é consultado uma vez por transação
+    private final class PendingDeltas {
+        private final Map<Long, SummaryKey> owners = new HashMap<>();
+        private final Map<SummaryKey, Delta> deltas = new TreeMap<>(KEY_ORDER);
+
+        private void add(Long accountId, BigDecimal balance, long count, LocalDateTime transactionAt) {
+            SummaryKey key = owners.computeIfAbsent(accountId, id -> accountRepository.findOwnerById(id)
+                    .map(owner -> new SummaryKey(owner.getUserId(), owner.getAccountType()))
+                    .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + id)));
+            add(accountId, key, balance, count, transactionAt);
+        }
+
+        private void add(Long accountId, SummaryKey key, BigDecimal balance, long count, LocalDateTime transactionAt) {
+            owners.put(accountId, key);
+            Delta delta = deltas.computeIfAbsent(key, k -> new Delta());
+            delta.balance = delta.balance.add(balance);
+            delta.count += count;
+            if (transactionAt != null
+                    && (delta.lastTransactionAt == null || transactionAt.isAfter(delta.lastTransactionAt))) {
+                delta.lastTransactionAt = transactionAt;
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.fintech.service;
+
+import com.fintech.dto.StatementDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Transaction;
+import com.fintech.repository.AccountRepository;
+import com.fintech.repository.ArchivedTransactionRepository;
+import com.fintech.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class StatementService {
+
+    static final Set<Transaction.TransactionType> CREDIT_TYPES = Arrays.stream(Transaction.TransactionType.values())
+            .filter(Transaction.TransactionType::isCredit)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(Transaction.TransactionType.class)));
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final BalanceLedger balanceLedger;
+
+    // Saldo de abertura vem do snapshot mais próximo; só as transações da janela são lidas
+    @Transactional(readOnly = true)
+    public StatementDTO statement(Long accountId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Data inicial deve ser anterior ou igual à data final");
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        BigDecimal openingBalance;
+        if (balanceLedger.isEnabled()) {
+            // Livro-razão: checkpoint anterior ao início mais os lançamentos até ele
+            openingBalance = balanceLedger.balanceAt(accountId, start);
+        } else {
+            BigDecimal currentBalance = accountRepository.findBalanceById(accountId)
+                    .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + accountId));
+            // Contas sem snapshot anterior (criadas antes dos snapshots) reconstroem a abertura pelo saldo atual
+            openingBalance = balanceSnapshotService.closingBalanceBefore(accountId, from)
+                    .orElseGet(() -> currentBalance
+                            .subtract(transactionRepository.sumSignedAmountSince(accountId, start, CREDIT_TYPES))
+                            .subtract(archivedTransactionRepository.sumSignedAmountSince(accountId, start, CREDIT_TYPES)));
+        }
+
+        List<TransactionDTO> transactions = transactionRepository.findStatementLines(accountId, start, end);
+        // Janelas antigas: linhas já arquivadas entram na ordem de (data, id)
+        List<TransactionDTO> archived = archivedTransactionRepository.findStatementLines(accountId, start, end);
+        if (!archived.isEmpty()) {
+            transactions = Stream.concat(archived.stream(), transactions.stream())
+                    .sorted(Comparator.comparing(TransactionDTO::getTransactionDate).thenComparing(TransactionDTO::getId))
+                    .toList();
+        }
+        BigDecimal closingBalance = openingBalance;
+        for (TransactionDTO transaction : transactions) {
+            closingBalance = transaction.getTransactionType().isCredit()
+                    ? closingBalance.add(transaction.getAmount())
+                    : closingBalance.subtract(transaction.getAmount());
+        }
+
+        return new StatementDTO(accountId, from, to, openingBalance, closingBalance, transactions);
+    }
+}
@@ -0,0 +1,506 @@
+package com.fintech.service;
+
+import com.fintech.model.Account;
+import com.fintech.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Massa sintética para testes de desempenho: N usuários, M contas por usuário e K transações por conta,
+// gravados direto por JDBC (INSERT em lote, ou COPY no PostgreSQL) em blocos paralelos, um commit por bloco.
+// Cada conta nasce com um depósito e segue em ordem cronológica: débitos que deixariam o saldo negativo viram
+// depósitos, então accounts.balance, os snapshots diários e o resumo da carteira fecham com o histórico.
+// E-mails e CPFs numerados a partir do maior id de usuário: execuções repetidas somam usuários, e o sorteio
+// de cada usuário depende da semente e desse número (mesma semente e mesmo banco de partida, mesma massa).
+@Service
+@Slf4j
+public class SyntheticDataGenerator {
+
+    // INCREMENT BY de transactions_seq (allocationSize de Transaction): cada valor reserva os ids
+    // [valor - 49, valor], o mesmo intervalo que o otimizador pooled do Hibernate usaria
+    private static final int IDS_PER_SEQUENCE_VALUE = 50;
+    // Transações por bloco (uma transação do banco por bloco)
+    private static final int ROWS_PER_CHUNK = 50_000;
+
+    private static final String[] FIRST_NAMES = {"Ana", "Bruno", "Carla", "Diego", "Eduarda", "Felipe", "Gabriela",
+            "Henrique", "Isabela", "João", "Larissa", "Marcos", "Natália", "Otávio", "Patrícia", "Rafael", "Sofia",
+            "Thiago", "Vitória", "William"};
+    private static final String[] LAST_NAMES = {"Almeida", "Barbosa", "Cardoso", "Costa", "Ferreira", "Gomes",
+            "Lima", "Martins", "Oliveira", "Pereira", "Ribeiro", "Rocha", "Santos", "Silva", "Souza"};
+    // Sem tabulação, quebra de linha nem barra invertida: vão direto no formato texto do COPY
+    private static final String[] DEPOSITS = {"Salário", "PIX recebido", "Depósito em dinheiro", "Reembolso"};
+    private static final String[] WITHDRAWALS = {"Saque em caixa eletrônico", "Saque no caixa da agência"};
+    private static final String[] PAYMENTS = {"Pagamento de boleto", "Cartão - Supermercado", "Cartão - Restaurante",
+            "Conta de luz", "Conta de internet", "Farmácia", "Combustível", "Assinatura de streaming"};
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final boolean ledger;
+    private final boolean partitioned;
+    private final boolean useCopy;
+    private final int batchSize;
+
+    public SyntheticDataGenerator(DataSource dataSource,
+                                  JdbcTemplate jdbcTemplate,
+                                  AccountNumberAllocator accountNumberAllocator,
+                                  @Value("${fintech.balance.update-strategy:ATOMIC}") BalanceUpdater.Strategy strategy,
+                                  @Value("${fintech.partitions.enabled:false}") boolean partitioned,
+                                  @Value("${fintech.generator.use-copy:true}") boolean useCopy,
+                                  @Value("${fintech.generator.batch-size:1000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.ledger = strategy == BalanceUpdater.Strategy.LEDGER;
+        this.partitioned = partitioned;
+        this.useCopy = useCopy;
+        this.batchSize = batchSize;
+    }
+
+    public record Plan(int users, int accountsPerUser, int transactionsPerAccount, Duration history,
+                       int threads, long seed) {
+    }
+
+    public record Result(long users, long accounts, long transactions, long snapshots, Duration elapsed) {
+    }
+
+    public Result generate(Plan plan) {
+        if (plan.users() <= 0 || plan.accountsPerUser() <= 0 || plan.transactionsPerAccount() <= 0) {
+            throw new IllegalArgumentException("Usuários, contas por usuário e transações por conta devem ser positivos");
+        }
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime historyStart = now.minus(plan.history());
+        if (partitioned) {
+            // Meses do histórico com partição própria, e não na default
+            jdbcTemplate.queryForObject("select create_transactions_partitions(?, ?)", Integer.class,
+                    historyStart.toLocalDate(), now.toLocalDate());
+        }
+        Long maxUserId = jdbcTemplate.queryForObject("select max(id) from users", Long.class);
+        long firstUser = (maxUserId != null ? maxUserId : 0) + 1;
+
+        int usersPerChunk = Math.max(1, ROWS_PER_CHUNK / (plan.accountsPerUser() * plan.transactionsPerAccount()));
+        ExecutorService executor = Executors.newFixedThreadPool(plan.threads());
+        List<Future<long[]>> chunks = new ArrayList<>();
+        try {
+            for (int from = 0; from < plan.users(); from += usersPerChunk) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(plan.users(), from + usersPerChunk);
+                chunks.add(executor.submit(() -> writeChunk(plan, firstUser, chunkFrom, chunkTo, historyStart, now)));
+            }
+            long[] totals = new long[4];
+            for (Future<long[]> chunk : chunks) {
+                long[] written = chunk.get();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += written[i];
+                }
+            }
+            return new Result(totals[0], totals[1], totals[2], totals[3], Duration.ofNanos(System.nanoTime() - started));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Geração de dados sintéticos interrompida", e);
+        } catch (ExecutionException e) {
+            // Blocos já confirmados permanecem no banco
+            throw new RuntimeException("Falha ao gerar dados sintéticos: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] writeChunk(Plan plan, long firstUser, int from, int to, LocalDateTime historyStart,
+                              LocalDateTime now) throws SQLException, IOException {
+        List<SyntheticUser> users = new ArrayList<>(to - from);
+        for (int index = from; index < to; index++) {
+            users.add(user(plan, firstUser + index, historyStart, now));
+        }
+        List<SyntheticAccount> accounts = users.stream().flatMap(user -> user.accounts.stream()).toList();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            boolean copy = useCopy && "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            try {
+                insertUsers(connection, users);
+                insertAccounts(connection, accounts);
+                long transactions = copy ? copyTransactions(connection, accounts) : insertTransactions(connection, accounts);
+                // LEDGER: extratos partem dos checkpoints do livro-razão, não dos snapshots
+                long snapshots = ledger ? 0 : copy ? copySnapshots(connection, accounts) : insertSnapshots(connection, accounts);
+                insertSummaries(connection, users);
+                connection.commit();
+                log.debug("Bloco de usuários {}-{} gravado: {} transações", from, to - 1, transactions);
+                return new long[]{users.size(), accounts.size(), transactions, snapshots};
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private SyntheticUser user(Plan plan, long number, LocalDateTime historyStart, LocalDateTime now) {
+        SplittableRandom random = new SplittableRandom(plan.seed() ^ (number * 0x9E3779B97F4A7C15L));
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        long historySeconds = Math.max(1, Duration.between(historyStart, now).toSeconds());
+
+        SyntheticUser user = new SyntheticUser();
+        user.name = firstName + " " + lastName;
+        user.email = ascii(firstName + "." + lastName).toLowerCase() + "." + number + "@exemplo.com.br";
+        user.cpf = cpf(number);
+        // Clientes chegam ao longo da primeira metade da janela; contas abrem até 30 dias depois
+        user.createdAt = historyStart.plusSeconds(random.nextLong(Math.max(1, historySeconds / 2)));
+        for (int i = 0; i < plan.accountsPerUser(); i++) {
+            LocalDateTime openedAt = user.createdAt.plusSeconds(random.nextLong(30L * 24 * 3600));
+            user.accounts.add(account(random, user, i == 0 ? Account.AccountType.CHECKING : accountType(random),
+                    openedAt.isBefore(now) ? openedAt : now, now, plan.transactionsPerAccount()));
+        }
+        return user;
+    }
+
+    private SyntheticAccount account(SplittableRandom random, SyntheticUser user, Account.AccountType type,
+                                     LocalDateTime openedAt, LocalDateTime now, int transactions) {
+        SyntheticAccount account = new SyntheticAccount();
+        account.user = user;
+        account.accountNumber = accountNumberAllocator.next();
+        account.accountType = type;
+        account.createdAt = openedAt;
+        account.dates = new LocalDateTime[transactions];
+        account.cents = new long[transactions];
+        account.types = new Transaction.TransactionType[transactions];
+        account.descriptions = new String[transactions];
+
+        // Datas uniformes entre a abertura e agora, concentradas no horário comercial
+        long days = ChronoUnit.DAYS.between(openedAt.toLocalDate(), now.toLocalDate());
+        account.dates[0] = openedAt;
+        for (int i = 1; i < transactions; i++) {
+            int hour = random.nextInt(10) < 9 ? 8 + random.nextInt(14) : random.nextInt(24);
+            LocalDateTime date = openedAt.toLocalDate().plusDays(random.nextLong(days + 1))
+                    .atTime(hour, random.nextInt(60), random.nextInt(60));
+            account.dates[i] = date.isBefore(openedAt) ? openedAt : date.isAfter(now) ? now : date;
+        }
+        Arrays.sort(account.dates);
+
+        // Valores log-normais (muitos pequenos, poucos grandes); a conta abre com um depósito
+        long balance = 0;
+        for (int i = 0; i < transactions; i++) {
+            int draw = random.nextInt(100);
+            Transaction.TransactionType transactionType = i == 0 || draw < 20 ? Transaction.TransactionType.DEPOSIT
+                    : draw < 45 ? Transaction.TransactionType.WITHDRAWAL : Transaction.TransactionType.PAYMENT;
+            long cents = switch (transactionType) {
+                case DEPOSIT -> logNormalCents(random, 800, 0.9);
+                case WITHDRAWAL -> logNormalCents(random, 100, 0.7);
+                default -> logNormalCents(random, 60, 1.0);
+            };
+            if (!transactionType.isCredit() && cents > balance) {
+                transactionType = Transaction.TransactionType.DEPOSIT;
+            }
+            String[] descriptions = switch (transactionType) {
+                case DEPOSIT -> DEPOSITS;
+                case WITHDRAWAL -> WITHDRAWALS;
+                default -> PAYMENTS;
+            };
+            balance += transactionType.isCredit() ? cents : -cents;
+            account.cents[i] = cents;
+            account.types[i] = transactionType;
+            account.descriptions[i] = descriptions[random.nextInt(descriptions.length)];
+        }
+        account.balanceCents = balance;
+        return account;
+    }
+
+    private void insertUsers(Connection connection, List<SyntheticUser> users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into users (name, email, cpf, created_at, version) values (?, ?, ?, ?, 0)", new String[]{"id"})) {
+            for (SyntheticUser user : users) {
+                statement.setString(1, user.name);
+                statement.setString(2, user.email);
+                statement.setString(3, user.cpf);
+                statement.setTimestamp(4, Timestamp.valueOf(user.createdAt));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                for (SyntheticUser user : users) {
+                    keys.next();
+                    user.id = keys.getLong(1);
+                }
+            }
+        }
+    }
+
+    // Na estratégia LEDGER accounts.balance é o saldo de abertura: o saldo vem dos lançamentos
+    private void insertAccounts(Connection connection, List<SyntheticAccount> accounts) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("insert into accounts (account_number, user_id, "
+                + "balance, account_type, created_at, version) values (?, ?, ?, ?, ?, 0)", new String[]{"id"})) {
+            for (SyntheticAccount account : accounts) {
+                statement.setString(1, account.accountNumber);
+                statement.setLong(2, account.user.id);
+                statement.setBigDecimal(3, ledger ? BigDecimal.ZERO : BigDecimal.valueOf(account.balanceCents, 2));
+                statement.setString(4, account.accountType.name());
+                statement.setTimestamp(5, Timestamp.valueOf(account.createdAt));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                for (SyntheticAccount account : accounts) {
+                    keys.next();
+                    account.id = keys.getLong(1);
+                }
+            }
+        }
+    }
+
+    private long insertTransactions(Connection connection, List<SyntheticAccount> accounts) throws SQLException {
+        IdBlock ids = reserveTransactionIds(connection, accounts);
+        long rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement("insert into transactions (id, account_id, "
+                + "amount, transaction_type, description, transaction_date) values (?, ?, ?, ?, ?, ?)")) {
+            for (SyntheticAccount account : accounts) {
+                for (int i = 0; i < account.cents.length; i++) {
+                    statement.setLong(1, ids.next());
+                    statement.setLong(2, account.id);
+                    statement.setBigDecimal(3, BigDecimal.valueOf(account.cents[i], 2));
+                    statement.setString(4, account.types[i].name());
+                    statement.setString(5, account.descriptions[i]);
+                    statement.setTimestamp(6, Timestamp.valueOf(account.dates[i]));
+                    statement.addBatch();
+                    if (++rows % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+            statement.executeBatch();
+        }
+        return rows;
+    }
+
+    private long copyTransactions(Connection connection, List<SyntheticAccount> accounts) throws SQLException, IOException {
+        IdBlock ids = reserveTransactionIds(connection, accounts);
+        StringBuilder rows = new StringBuilder();
+        long count = 0;
+        for (SyntheticAccount account : accounts) {
+            for (int i = 0; i < account.cents.length; i++) {
+                rows.append(ids.next()).append('\t')
+                        .append(account.id).append('\t')
+                        .append(BigDecimal.valueOf(account.cents[i], 2).toPlainString()).append('\t')
+                        .append(account.types[i].name()).append('\t')
+                        .append(account.descriptions[i]).append('\t')
+                        .append(account.dates[i]).append('\n');
+                count++;
+            }
+        }
+        copy(connection, "copy transactions (id, account_id, amount, transaction_type, description, transaction_date) "
+                + "from stdin", rows);
+        return count;
+    }
+
+    // Um snapshot por conta e dia com movimento, com o saldo depois da última transação do dia
+    private long insertSnapshots(Connection connection, List<SyntheticAccount> accounts) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement("insert into balance_snapshots (account_id, "
+                + "snapshot_date, closing_balance, updated_at) values (?, ?, ?, ?)")) {
+            for (SyntheticAccount account : accounts) {
+                for (DailyClose close : account.dailyCloses()) {
+                    statement.setLong(1, account.id);
+                    statement.setObject(2, close.date());
+                    statement.setBigDecimal(3, BigDecimal.valueOf(close.balanceCents(), 2));
+                    statement.setTimestamp(4, Timestamp.valueOf(close.updatedAt()));
+                    statement.addBatch();
+                    if (++rows % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+            statement.executeBatch();
+        }
+        return rows;
+    }
+
+    private long copySnapshots(Connection connection, List<SyntheticAccount> accounts) throws SQLException, IOException {
+        StringBuilder rows = new StringBuilder();
+        long count = 0;
+        for (SyntheticAccount account : accounts) {
+            for (DailyClose close : account.dailyCloses()) {
+                rows.append(account.id).append('\t')
+                        .append(close.date()).append('\t')
+                        .append(BigDecimal.valueOf(close.balanceCents(), 2).toPlainString()).append('\t')
+                        .append(close.updatedAt()).append('\n');
+                count++;
+            }
+        }
+        copy(connection, "copy balance_snapshots (account_id, snapshot_date, closing_balance, updated_at) from stdin", rows);
+        return count;
+    }
+
+    // Uma linha por tipo de conta, como PortfolioSummaryService.userCreated
+    private void insertSummaries(Connection connection, List<SyntheticUser> users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("insert into portfolio_summaries (user_id, "
+                + "account_type, balance, account_count, last_transaction_at) values (?, ?, ?, ?, ?)")) {
+            for (SyntheticUser user : users) {
+                Map<Account.AccountType, List<SyntheticAccount>> byType = new EnumMap<>(Account.AccountType.class);
+                for (Account.AccountType type : Account.AccountType.values()) {
+                    byType.put(type, new ArrayList<>());
+                }
+                user.accounts.forEach(account -> byType.get(account.accountType).add(account));
+                for (Map.Entry<Account.AccountType, List<SyntheticAccount>> entry : byType.entrySet()) {
+                    List<SyntheticAccount> accounts = entry.getValue();
+                    LocalDateTime lastTransactionAt = accounts.stream()
+                            .map(account -> account.dates[account.dates.length - 1])
+                            .max(LocalDateTime::compareTo)
+                            .orElse(null);
+                    statement.setLong(1, user.id);
+                    statement.setString(2, entry.getKey().name());
+                    statement.setBigDecimal(3, BigDecimal.valueOf(
+                            accounts.stream().mapToLong(account -> account.balanceCents).sum(), 2));
+                    statement.setLong(4, accounts.size());
+                    statement.setTimestamp(5, lastTransactionAt != null ? Timestamp.valueOf(lastTransactionAt) : null);
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private IdBlock reserveTransactionIds(Connection connection, List<SyntheticAccount> accounts) throws SQLException {
+        long rows = accounts.stream().mapToLong(account -> account.cents.length).sum();
+        // Um valor a mais: o 1 de uma sequence nova não reserva um intervalo inteiro e é descartado
+        int values = (int) ((rows + IDS_PER_SEQUENCE_VALUE - 1) / IDS_PER_SEQUENCE_VALUE) + 1;
+        boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        String sql = postgres
+                ? "select nextval('transactions_seq') from generate_series(1, ?)"
+                : "select next value for transactions_seq from system_range(1, ?)";
+        List<Long> reserved = new ArrayList<>(values);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, values);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (resultSet.getLong(1) >= IDS_PER_SEQUENCE_VALUE) {
+                        reserved.add(resultSet.getLong(1));
+                    }
+                }
+            }
+        }
+        return new IdBlock(reserved);
+    }
+
+    private void copy(Connection connection, String sql, CharSequence rows) throws SQLException, IOException {
+        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(rows.toString()));
+    }
+
+    private static Account.AccountType accountType(SplittableRandom random) {
+        int draw = random.nextInt(10);
+        return draw < 5 ? Account.AccountType.SAVINGS : draw < 8 ? Account.AccountType.INVESTMENT : Account.AccountType.CHECKING;
+    }
+
+    private static long logNormalCents(SplittableRandom random, double median, double sigma) {
+        double value = median * Math.exp(sigma * random.nextGaussian());
+        return Math.max(1, Math.min(5_000_000, Math.round(value * 100)));
+    }
+
+    private static String ascii(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    // Nove dígitos a partir do número do usuário e os dois verificadores
+    static String cpf(long number) {
+        int[] digits = new int[11];
+        long base = number % 1_000_000_000L;
+        for (int i = 8; i >= 0; i--) {
+            digits[i] = (int) (base % 10);
+            base /= 10;
+        }
+        for (int length = 9; length <= 10; length++) {
+            int sum = 0;
+            for (int i = 0; i < length; i++) {
+                sum += digits[i] * (length + 1 - i);
+            }
+            int remainder = sum % 11;
+            digits[length] = remainder < 2 ? 0 : 11 - remainder;
+        }
+        StringBuilder cpf = new StringBuilder(11);
+        for (int digit : digits) {
+            cpf.append(digit);
+        }
+        return cpf.toString();
+    }
+
+    private static final class SyntheticUser {
+        private Long id;
+        private String name;
+        private String email;
+        private String cpf;
+        private LocalDateTime createdAt;
+        private final List<SyntheticAccount> accounts = new ArrayList<>();
+    }
+
+    private static final class SyntheticAccount {
+        private Long id;
+        private SyntheticUser user;
+        private String accountNumber;
+        private Account.AccountType accountType;
+        private LocalDateTime createdAt;
+        private LocalDateTime[] dates;
+        private long[] cents;
+        private Transaction.TransactionType[] types;
+        private String[] descriptions;
+        private long balanceCents;
+
+        private List<DailyClose> dailyCloses() {
+            List<DailyClose> closes = new ArrayList<>();
+            long balance = 0;
+            for (int i = 0; i < cents.length; i++) {
+                balance += types[i].isCredit() ? cents[i] : -cents[i];
+                if (i == cents.length - 1 || !dates[i + 1].toLocalDate().equals(dates[i].toLocalDate())) {
+                    closes.add(new DailyClose(dates[i].toLocalDate(), balance, dates[i]));
+                }
+            }
+            return closes;
+        }
+    }
+
+    private record DailyClose(LocalDate date, long balanceCents, LocalDateTime updatedAt) {
+    }
+
+    private static final class IdBlock {
+        private final List<Long> sequenceValues;
+        private int block;
+        private int offset;
+
+        private IdBlock(List<Long> sequenceValues) {
+            this.sequenceValues = sequenceValues;
+        }
+
+        private long next() {
+            if (offset == IDS_PER_SEQUENCE_VALUE) {
+                block++;
+                offset = 0;
+            }
+            return sequenceValues.get(block) - (IDS_PER_SEQUENCE_VALUE - 1) + offset++;
+        }
+    }
+}
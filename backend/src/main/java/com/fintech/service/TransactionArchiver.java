@@ -0,0 +1,96 @@
+package com.fintech.service;
+
+import com.fintech.repository.ArchivedTransactionRepository;
+import com.fintech.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Move para archived_transactions as transações mais antigas que a retenção, em lotes de batchSize:
+// cada lote copia e apaga na própria transação, então as linhas ficam travadas só durante um lote
+// e a tabela quente fica com os últimos meses. As leituras por conta, extratos e analytics juntam o arquivo.
+// Na estratégia LEDGER os lançamentos são o saldo (checkpoint + lançamentos) e nada é arquivado.
+@Component
+@Slf4j
+public class TransactionArchiver {
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final BalanceLedger balanceLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int batchSize;
+
+    public TransactionArchiver(TransactionRepository transactionRepository,
+                               ArchivedTransactionRepository archivedTransactionRepository,
+                               BalanceLedger balanceLedger,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${fintech.archive.enabled:false}") boolean enabled,
+                               @Value("${fintech.archive.retention:90d}") Duration retention,
+                               @Value("${fintech.archive.batch-size:1000}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.balanceLedger = balanceLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${fintech.archive.interval:PT6H}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        if (balanceLedger.isEnabled()) {
+            log.warn("Arquivamento de transações ignorado: a estratégia LEDGER calcula o saldo a partir delas");
+            return;
+        }
+        archive(LocalDateTime.now().minus(retention));
+    }
+
+    // Devolve quantas transações foram arquivadas
+    int archive(LocalDateTime cutoff) {
+        int archived = 0;
+        while (true) {
+            int moved;
+            try {
+                moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            } catch (DataIntegrityViolationException e) {
+                // Outra instância arquivou o mesmo lote (id repetido no arquivo) ou um estorno
+                // acabou de apontar para uma das linhas: a próxima execução continua daqui
+                log.info("Lote de arquivamento abortado: {}", e.getMostSpecificCause().getMessage());
+                break;
+            }
+            // Até um lote vazio: um lançamento estornado só fica elegível no lote seguinte ao do estorno
+            if (moved == 0) {
+                break;
+            }
+            archived += moved;
+        }
+        if (archived > 0) {
+            log.info("Arquivadas {} transações anteriores a {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = transactionRepository.findArchivableIds(cutoff, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedTransactionRepository.copyFromTransactions(ids, LocalDateTime.now());
+        transactionRepository.deleteByIdIn(ids);
+        return ids.size();
+    }
+}
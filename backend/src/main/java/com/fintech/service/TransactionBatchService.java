@@ -0,0 +1,171 @@
+package com.fintech.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.dto.BatchItemErrorDTO;
+import com.fintech.dto.BatchResultDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Transaction;
+import com.fintech.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionBatchService {
+
+    private final AccountRepository accountRepository;
+    private final BalanceUpdater balanceUpdater;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionMetrics transactionMetrics;
+
+    // Múltiplo do hibernate.jdbc.batch_size: limita o contexto de persistência em grupos grandes
+    @Value("${fintech.batch.flush-size:1000}")
+    private int flushSize;
+
+    // Aceita tanto um array JSON quanto NDJSON (um objeto por linha)
+    public BatchResultDTO ingest(InputStream body) throws IOException {
+        List<BatchItemErrorDTO> errors = new ArrayList<>();
+        Map<Long, List<Item>> itemsByAccount = new LinkedHashMap<>();
+        int received = 0;
+
+        // Cada item é lido como árvore e convertido à parte: um tipo inválido ou um campo malformado vira erro
+        // do item e o resto do lote segue. Só JSON quebrado (sintaxe) interrompe a leitura
+        try (MappingIterator<JsonNode> iterator = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                int index = received++;
+                JsonNode node = iterator.nextValue();
+                TransactionDTO transactionDTO;
+                try {
+                    transactionDTO = objectMapper.treeToValue(node, TransactionDTO.class);
+                } catch (JsonProcessingException e) {
+                    JsonNode accountId = node.get("accountId");
+                    errors.add(new BatchItemErrorDTO(index, accountId != null && accountId.canConvertToLong()
+                            ? accountId.asLong() : null, "Item inválido: " + e.getOriginalMessage()));
+                    continue;
+                }
+
+                Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(transactionDTO);
+                if (!violations.isEmpty()) {
+                    errors.add(new BatchItemErrorDTO(index, transactionDTO.getAccountId(), violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining("; "))));
+                    continue;
+                }
+                itemsByAccount.computeIfAbsent(transactionDTO.getAccountId(), id -> new ArrayList<>())
+                        .add(new Item(index, transactionDTO));
+            }
+        }
+
+        int created = 0;
+        for (Map.Entry<Long, List<Item>> group : itemsByAccount.entrySet()) {
+            created += applyGroup(group.getKey(), group.getValue(), errors);
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return new BatchResultDTO(received, created, errors.size(), errors);
+    }
+
+    // Cada conta roda na sua própria transação: a falha de uma conta não desfaz as demais
+    private int applyGroup(Long accountId, List<Item> items, List<BatchItemErrorDTO> errors) {
+        List<BatchItemErrorDTO> groupErrors = new ArrayList<>();
+        try {
+            Integer created = transactionTemplate.execute(status -> {
+                groupErrors.clear();
+                LocalDateTime now = LocalDateTime.now();
+                BigDecimal openingBalance = balanceUpdater.lockForUpdate(accountId);
+                BigDecimal balance = openingBalance;
+                List<Transaction> accepted = new ArrayList<>(items.size());
+
+                // Aplica os itens na ordem recebida, recusando os que deixariam o saldo negativo
+                for (Item item : items) {
+                    TransactionDTO transactionDTO = item.transaction();
+                    BigDecimal amount = transactionDTO.getAmount();
+                    Transaction.TransactionType type = transactionDTO.getTransactionType();
+                    if (type == Transaction.TransactionType.TRANSFER || type == Transaction.TransactionType.TRANSFER_IN) {
+                        // Duas pernas com trava de duas contas: não cabe no grupo de uma conta só
+                        groupErrors.add(new BatchItemErrorDTO(item.index(), accountId,
+                                "Transferências devem usar POST /api/transfers"));
+                        continue;
+                    }
+                    if (type.isReversal()) {
+                        groupErrors.add(new BatchItemErrorDTO(item.index(), accountId,
+                                "Estornos devem usar POST /api/transactions/{id}/reversal"));
+                        continue;
+                    }
+                    if (type.isCredit()) {
+                        balance = balance.add(amount);
+                    } else if (balance.compareTo(amount) < 0) {
+                        transactionMetrics.insufficientFunds(type);
+                        groupErrors.add(new BatchItemErrorDTO(item.index(), accountId,
+                                "Saldo insuficiente. Saldo atual: " + balance));
+                        continue;
+                    } else {
+                        balance = balance.subtract(amount);
+                    }
+                    accepted.add(toEntity(transactionDTO, now));
+                }
+
+                // Uma única escrita de saldo por conta, seguida dos INSERTs em lote. Os lançamentos aceitos têm
+                // todos a mesma data, que é a do evento de saldo (e do snapshot do dia)
+                if (balance.compareTo(openingBalance) != 0) {
+                    balanceUpdater.overwrite(accountId, openingBalance, balance, accepted.get(0).getTransactionDate());
+                }
+                for (int i = 0; i < accepted.size(); i++) {
+                    Transaction transaction = accepted.get(i);
+                    transaction.setAccount(accountRepository.getReferenceById(accountId));
+                    entityManager.persist(transaction);
+                    if ((i + 1) % flushSize == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+                return accepted.size();
+            });
+            errors.addAll(groupErrors);
+            return created != null ? created : 0;
+        } catch (RuntimeException e) {
+            log.warn("Falha ao processar lote da conta {}: {}", accountId, e.getMessage());
+            for (Item item : items) {
+                errors.add(new BatchItemErrorDTO(item.index(), accountId, e.getMessage()));
+            }
+            return 0;
+        }
+    }
+
+    private Transaction toEntity(TransactionDTO transactionDTO, LocalDateTime transactionDate) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(transactionDTO.getAmount());
+        transaction.setTransactionType(transactionDTO.getTransactionType());
+        transaction.setDescription(transactionDTO.getDescription());
+        transaction.setTransactionDate(transactionDate);
+        return transaction;
+    }
+
+    private record Item(int index, TransactionDTO transaction) {
+    }
+}
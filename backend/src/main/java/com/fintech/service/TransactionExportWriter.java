@@ -0,0 +1,145 @@
+package com.fintech.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fintech.dto.TransactionDTO;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Escreve o extrato linha a linha; só o buffer atual fica em memória
+abstract class TransactionExportWriter {
+
+    // Descarrega a primeira linha imediatamente e depois a cada lote
+    private static final int FLUSH_EVERY = 500;
+
+    private long written;
+
+    static TransactionExportWriter create(TransactionService.ExportFormat format,
+                                          OutputStream outputStream,
+                                          ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new Ndjson(outputStream, objectMapper);
+            case CSV -> new Csv(outputStream);
+        };
+    }
+
+    void write(TransactionDTO transaction) throws IOException {
+        writeRow(transaction);
+        if (++written % FLUSH_EVERY == 1) {
+            flush();
+        }
+    }
+
+    long written() {
+        return written;
+    }
+
+    abstract void writeRow(TransactionDTO transaction) throws IOException;
+
+    abstract void flush() throws IOException;
+
+    abstract void finish() throws IOException;
+
+    private static final class Ndjson extends TransactionExportWriter {
+
+        private final OutputStream outputStream;
+        private final SequenceWriter sequenceWriter;
+
+        Ndjson(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+            this.outputStream = outputStream;
+            this.sequenceWriter = objectMapper.writerFor(TransactionDTO.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream);
+        }
+
+        @Override
+        void writeRow(TransactionDTO transaction) throws IOException {
+            sequenceWriter.write(transaction);
+        }
+
+        @Override
+        void flush() throws IOException {
+            sequenceWriter.flush();
+        }
+
+        @Override
+        void finish() throws IOException {
+            sequenceWriter.flush();
+            // O separador só vai entre registros: termina a última linha, e um extrato vazio fica vazio
+            if (written() > 0) {
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+        }
+    }
+
+    private static final class Csv extends TransactionExportWriter {
+
+        // Mesmas colunas e ordem do NDJSON (os campos do TransactionDTO): cabeçalho e valores saem desta lista
+        private static final List<Column> COLUMNS = List.of(
+                new Column("id", TransactionDTO::getId),
+                new Column("accountId", TransactionDTO::getAccountId),
+                new Column("amount", transaction -> transaction.getAmount().toPlainString()),
+                new Column("transactionType", TransactionDTO::getTransactionType),
+                new Column("description", TransactionDTO::getDescription),
+                new Column("transactionDate", TransactionDTO::getTransactionDate),
+                new Column("counterpartyAccountId", TransactionDTO::getCounterpartyAccountId));
+
+        private final Writer writer;
+
+        Csv(OutputStream outputStream) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write(COLUMNS.stream().map(Column::name).collect(Collectors.joining(",")));
+            writer.write('\n');
+        }
+
+        @Override
+        void writeRow(TransactionDTO transaction) throws IOException {
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = COLUMNS.get(i).value().apply(transaction);
+                if (value != null) {
+                    writeEscaped(value.toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        private void writeEscaped(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+
+        private record Column(String name, Function<TransactionDTO, Object> value) {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.fintech.service;
+
+import com.fintech.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Medidores do caminho de transações, registrados uma única vez: no hot path só há incremento
+// de contadores/buckets, sem lookup no registry nem criação de tags por chamada
+@Component
+public class TransactionMetrics {
+
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT_FUNDS, ERROR
+    }
+
+    private final Map<Transaction.TransactionType, Map<Outcome, Timer>> createTimers =
+            new EnumMap<>(Transaction.TransactionType.class);
+    private final Map<Transaction.TransactionType, Counter> insufficientFunds =
+            new EnumMap<>(Transaction.TransactionType.class);
+    private final Counter optimisticRetries;
+    private final Counter optimisticConflicts;
+    private final Timer stripeLockWait;
+    private final DistributionSummary coalescedBatch;
+
+    public TransactionMetrics(MeterRegistry registry) {
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            Map<Outcome, Timer> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Timer.builder("fintech.transactions.create")
+                        .description("Tempo de TransactionService.create, incluindo a atualização de saldo")
+                        .tag("type", type.name())
+                        .tag("outcome", outcome.name())
+                        .register(registry));
+            }
+            createTimers.put(type, byOutcome);
+            insufficientFunds.put(type, Counter.builder("fintech.balance.insufficient.funds")
+                    .description("Débitos recusados por saldo insuficiente")
+                    .tag("type", type.name())
+                    .register(registry));
+        }
+        optimisticRetries = Counter.builder("fintech.balance.optimistic.retries")
+                .description("Novas tentativas após conflito de versão (estratégia OPTIMISTIC)")
+                .register(registry);
+        optimisticConflicts = Counter.builder("fintech.balance.optimistic.conflicts")
+                .description("Atualizações abortadas após esgotar as tentativas (estratégia OPTIMISTIC)")
+                .register(registry);
+        stripeLockWait = Timer.builder("fintech.balance.lock.wait")
+                .description("Espera por lock de conta já ocupado (estratégia STRIPED)")
+                .register(registry);
+        coalescedBatch = DistributionSummary.builder("fintech.deposits.coalesced.batch.size")
+                .description("Depósitos gravados por commit no group commit")
+                .register(registry);
+    }
+
+    public void recordCreate(Transaction.TransactionType type, Outcome outcome, long startNanos) {
+        createTimers.get(type).get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void insufficientFunds(Transaction.TransactionType type) {
+        insufficientFunds.get(type).increment();
+    }
+
+    public void optimisticRetry() {
+        optimisticRetries.increment();
+    }
+
+    public void optimisticConflict() {
+        optimisticConflicts.increment();
+    }
+
+    public void stripeLockWait(long waitNanos) {
+        stripeLockWait.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void coalescedBatch(int size) {
+        coalescedBatch.record(size);
+    }
+}
@@ -0,0 +1,38 @@
+package com.fintech.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+// Mantém criadas as partições mensais de transactions do mês corrente até monthsAhead meses à frente.
+// Precisa rodar antes de o mês chegar: depois que a partição default recebe linhas de um mês,
+// o PostgreSQL recusa criar a partição desse mês (create_transactions_partitions, migração V2)
+@Component
+@ConditionalOnProperty(name = "fintech.partitions.enabled", havingValue = "true")
+@Slf4j
+public class TransactionPartitionMaintainer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public TransactionPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                          @Value("${fintech.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Scheduled(fixedDelayString = "${fintech.partitions.check-interval:PT12H}")
+    public void createUpcomingPartitions() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        Integer created = jdbcTemplate.queryForObject("select create_transactions_partitions(?, ?)", Integer.class,
+                currentMonth, currentMonth.plusMonths(monthsAhead));
+        if (created != null && created > 0) {
+            log.info("Criadas {} partições mensais de transactions até {}", created, currentMonth.plusMonths(monthsAhead));
+        }
+    }
+}
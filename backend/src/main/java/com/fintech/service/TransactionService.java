@@ -1,104 +1,354 @@
 package com.fintech.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.dto.PageDTO;
 import com.fintech.dto.TransactionDTO;
-import com.fintech.model.Account;
+import com.fintech.dto.TransferDTO;
+import com.fintech.dto.TransferResultDTO;
 import com.fintech.model.Transaction;
 import com.fintech.repository.AccountRepository;
+import com.fintech.repository.ArchivedTransactionRepository;
 import com.fintech.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
 
+    private static final Comparator<TransactionDTO> OLDEST_FIRST = Comparator
+            .comparing(TransactionDTO::getTransactionDate)
+            .thenComparing(TransactionDTO::getId);
+
     private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
     private final AccountRepository accountRepository;
+    private final ObjectMapper objectMapper;
+    private final BalanceUpdater balanceUpdater;
+    private final TransactionMetrics transactionMetrics;
+    private final BalanceLedger balanceLedger;
+    private final DepositCoalescer depositCoalescer;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
-    public List<TransactionDTO> findAll() {
-        return transactionRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public PageDTO<TransactionDTO> findAll(String cursor, Integer limit) {
+        int pageSize = CursorCodec.pageSize(limit);
+        List<TransactionDTO> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = transactionRepository.findFirstPage(Limit.of(pageSize + 1));
+        } else {
+            CursorCodec.DateAndId after = CursorCodec.decodeDateAndId(cursor);
+            rows = transactionRepository.findPageAfter(after.date(), after.id(), Limit.of(pageSize + 1));
+        }
+        return toPage(rows, pageSize);
     }
 
     @Transactional(readOnly = true)
     public TransactionDTO findById(Long id) {
-        Transaction transaction = transactionRepository.findById(id)
+        return transactionRepository.findDTOById(id)
+                .or(() -> archivedTransactionRepository.findDTOById(id))
                 .orElseThrow(() -> new RuntimeException("Transação não encontrada com ID: " + id));
-        return toDTO(transaction);
     }
 
     @Transactional(readOnly = true)
-    public List<TransactionDTO> findByAccountId(Long accountId) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + accountId));
-        
-        return transactionRepository.findByAccount(account).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public PageDTO<TransactionDTO> findByAccountId(Long accountId, String cursor, Integer limit) {
+        requireAccount(accountId);
+
+        int pageSize = CursorCodec.pageSize(limit);
+        List<TransactionDTO> rows;
+        List<TransactionDTO> archived;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = transactionRepository.findFirstPageByAccountId(accountId, Limit.of(pageSize + 1));
+            archived = archivedTransactionRepository.findFirstPageByAccountId(accountId, Limit.of(pageSize + 1));
+        } else {
+            CursorCodec.DateAndId after = CursorCodec.decodeDateAndId(cursor);
+            rows = transactionRepository.findPageByAccountIdAfter(
+                    accountId, after.date(), after.id(), Limit.of(pageSize + 1));
+            archived = archivedTransactionRepository.findPageByAccountIdAfter(
+                    accountId, after.date(), after.id(), Limit.of(pageSize + 1));
+        }
+        // O mesmo cursor vale para as duas tabelas: a página é o começo da junção das duas
+        if (!archived.isEmpty()) {
+            rows = Stream.concat(rows.stream(), archived.stream())
+                    .sorted(OLDEST_FIRST.reversed())
+                    .limit(pageSize + 1)
+                    .toList();
+        }
+        return toPage(rows, pageSize);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
+    public void requireAccount(Long accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new RuntimeException("Conta não encontrada com ID: " + accountId);
+        }
+    }
+
+    // Exporta direto do cursor do banco para a resposta, com memória constante
+    @Transactional(readOnly = true)
+    public void exportByAccountId(Long accountId, ExportFormat format, OutputStream outputStream) throws IOException {
+        requireAccount(accountId);
+
+        TransactionExportWriter writer = TransactionExportWriter.create(format, outputStream, objectMapper);
+        // Projeção em DTO: nada entra no contexto de persistência durante a exportação
+        try (Stream<TransactionDTO> archived = archivedTransactionRepository.streamByAccountId(accountId);
+             Stream<TransactionDTO> transactions = transactionRepository.streamByAccountId(accountId)) {
+            Iterator<TransactionDTO> iterator = new MergingIterator(archived.iterator(), transactions.iterator());
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+            }
+        }
+        writer.finish();
+    }
+
+    // Sem @Transactional: um depósito agrupado espera o commit do lote sem segurar conexão do pool
     public TransactionDTO create(TransactionDTO transactionDTO) {
-        Account account = accountRepository.findById(transactionDTO.getAccountId())
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada com ID: " + transactionDTO.getAccountId()));
+        if (depositCoalescer.accepts(transactionDTO)) {
+            return measured(transactionDTO.getTransactionType(),
+                    () -> depositCoalescer.submit(transactionDTO, this::applyDeposits));
+        }
+        return measured(transactionDTO.getTransactionType(),
+                () -> transactionTemplate.execute(status -> apply(transactionDTO)));
+    }
 
-        Transaction transaction = new Transaction();
-        transaction.setAccount(account);
-        transaction.setAmount(transactionDTO.getAmount());
-        transaction.setTransactionType(transactionDTO.getTransactionType());
-        transaction.setDescription(transactionDTO.getDescription());
+    @Transactional
+    public TransferResultDTO transfer(TransferDTO transferDTO) {
+        return measured(Transaction.TransactionType.TRANSFER, () -> transferBetween(
+                transferDTO.getSourceAccountId(), transferDTO.getDestinationAccountId(),
+                transferDTO.getAmount(), transferDTO.getDescription(), LocalDateTime.now()));
+    }
+
+    private <T> T measured(Transaction.TransactionType type, Supplier<T> operation) {
+        long start = System.nanoTime();
+        TransactionMetrics.Outcome outcome = TransactionMetrics.Outcome.ERROR;
+        try {
+            T result = operation.get();
+            outcome = TransactionMetrics.Outcome.SUCCESS;
+            return result;
+        } catch (InsufficientFundsException e) {
+            outcome = TransactionMetrics.Outcome.INSUFFICIENT_FUNDS;
+            transactionMetrics.insufficientFunds(type);
+            throw e;
+        } finally {
+            transactionMetrics.recordCreate(type, outcome, start);
+        }
+    }
 
-        // Atualizar saldo da conta baseado no tipo de transação
-        BigDecimal currentBalance = account.getBalance();
-        BigDecimal transactionAmount = transaction.getAmount();
+    private TransactionDTO apply(TransactionDTO transactionDTO) {
+        Long accountId = transactionDTO.getAccountId();
+        BigDecimal transactionAmount = transactionDTO.getAmount();
+        // O evento de saldo leva a data do próprio lançamento: o snapshot do dia é o mesmo dia do extrato
+        Transaction transaction = newTransaction(accountId, null, transactionDTO.getTransactionType(),
+                transactionAmount, transactionDTO.getDescription(), LocalDateTime.now());
 
-        switch (transaction.getTransactionType()) {
+        // Atualizar saldo da conta baseado no tipo de transação (sem ler-modificar-gravar)
+        switch (transactionDTO.getTransactionType()) {
             case DEPOSIT:
-                account.setBalance(currentBalance.add(transactionAmount));
+                balanceUpdater.credit(accountId, transactionAmount, transaction.getTransactionDate());
                 break;
             case WITHDRAWAL:
             case PAYMENT:
-                if (currentBalance.compareTo(transactionAmount) < 0) {
-                    throw new RuntimeException("Saldo insuficiente. Saldo atual: " + currentBalance);
-                }
-                account.setBalance(currentBalance.subtract(transactionAmount));
+                balanceUpdater.debit(accountId, transactionAmount, transaction.getTransactionDate());
                 break;
             case TRANSFER:
-                if (currentBalance.compareTo(transactionAmount) < 0) {
-                    throw new RuntimeException("Saldo insuficiente para transferência. Saldo atual: " + currentBalance);
+                if (transactionDTO.getCounterpartyAccountId() == null) {
+                    throw new RuntimeException("Transferência exige a conta de destino (counterpartyAccountId)");
                 }
-                account.setBalance(currentBalance.subtract(transactionAmount));
-                break;
+                return transferBetween(accountId, transactionDTO.getCounterpartyAccountId(), transactionAmount,
+                        transactionDTO.getDescription(), transaction.getTransactionDate()).getDebit();
+            case TRANSFER_IN:
+                throw new RuntimeException("Créditos de transferência são gerados apenas por transferências");
+            case REVERSAL_CREDIT:
+            case REVERSAL_DEBIT:
+                throw new RuntimeException("Estornos são gerados por POST /api/transactions/{id}/reversal");
+        }
+
+        return toDTO(transactionRepository.save(transaction));
+    }
+
+    // Lote do group commit: um UPDATE de saldo pela soma e os INSERTs agrupados pelo batch_size do Hibernate
+    private List<TransactionDTO> applyDeposits(Long accountId, List<TransactionDTO> deposits) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Transaction> transactions = deposits.stream()
+                    .map(deposit -> newTransaction(accountId, null, Transaction.TransactionType.DEPOSIT,
+                            deposit.getAmount(), deposit.getDescription(), now))
+                    .toList();
+            BigDecimal total = transactions.stream()
+                    .map(Transaction::getAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Todos os depósitos do lote têm a mesma data, a do evento único de saldo
+            balanceUpdater.credit(accountId, total, transactions.get(0).getTransactionDate());
+            transactionRepository.saveAll(transactions);
+            return transactions.stream().map(this::toDTO).toList();
+        });
+    }
+
+    // Débito e crédito na mesma transação do banco, com as duas contas travadas em ordem de id
+    private TransferResultDTO transferBetween(Long sourceAccountId, Long destinationAccountId, BigDecimal amount,
+                                              String description, LocalDateTime now) {
+        if (sourceAccountId.equals(destinationAccountId)) {
+            throw new RuntimeException("Conta de origem e de destino devem ser diferentes");
+        }
+
+        Map<Long, BigDecimal> balances = balanceUpdater.lockForUpdate(List.of(sourceAccountId, destinationAccountId));
+        BigDecimal sourceBalance = balances.get(sourceAccountId);
+        BigDecimal destinationBalance = balances.get(destinationAccountId);
+        if (sourceBalance.compareTo(amount) < 0) {
+            throw new InsufficientFundsException(
+                    "Saldo insuficiente para transferência. Saldo atual: " + sourceBalance, sourceBalance);
         }
 
-        accountRepository.save(account);
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        return toDTO(savedTransaction);
+        Transaction debit = newTransaction(sourceAccountId, destinationAccountId,
+                Transaction.TransactionType.TRANSFER, amount, description, now);
+        Transaction credit = newTransaction(destinationAccountId, sourceAccountId,
+                Transaction.TransactionType.TRANSFER_IN, amount, description, now);
+        balanceUpdater.overwrite(sourceAccountId, sourceBalance, sourceBalance.subtract(amount),
+                debit.getTransactionDate());
+        balanceUpdater.overwrite(destinationAccountId, destinationBalance, destinationBalance.add(amount),
+                credit.getTransactionDate());
+        transactionRepository.saveAll(List.of(debit, credit));
+        return new TransferResultDTO(toDTO(debit), toDTO(credit));
+    }
+
+    private Transaction newTransaction(Long accountId, Long counterpartyAccountId, Transaction.TransactionType type,
+                                       BigDecimal amount, String description, LocalDateTime transactionDate) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(accountRepository.getReferenceById(accountId));
+        if (counterpartyAccountId != null) {
+            transaction.setCounterpartyAccount(accountRepository.getReferenceById(counterpartyAccountId));
+        }
+        transaction.setAmount(amount);
+        transaction.setTransactionType(type);
+        transaction.setDescription(description);
+        transaction.setTransactionDate(transactionDate);
+        return transaction;
     }
 
+    // No modo livro-razão lançamentos são imutáveis: excluir vira um estorno
     @Transactional
     public void delete(Long id) {
-        if (!transactionRepository.existsById(id)) {
-            throw new RuntimeException("Transação não encontrada com ID: " + id);
+        if (balanceLedger.isEnabled()) {
+            reverse(id);
+            return;
         }
+        Long accountId = transactionRepository.findAccountIdById(id)
+                .orElseThrow(() -> new RuntimeException("Transação não encontrada com ID: " + id));
         transactionRepository.deleteById(id);
+        // O saldo não muda, mas a listagem da conta sim: a versão sobe e invalida os ETags
+        accountRepository.incrementVersion(accountId);
+    }
+
+    // Lançamento compensatório de mesmo valor e sinal oposto; o original permanece no histórico
+    @Transactional
+    public TransactionDTO reverse(Long id) {
+        Transaction original = transactionRepository.findById(id)
+                .orElseThrow(() -> archivedTransactionRepository.existsById(id)
+                        ? new RuntimeException("Transações arquivadas não podem ser estornadas: " + id)
+                        : new RuntimeException("Transação não encontrada com ID: " + id));
+        Transaction.TransactionType type = original.getTransactionType();
+        if (type.isReversal()) {
+            throw new RuntimeException("Estornos não podem ser estornados");
+        }
+        if (type == Transaction.TransactionType.TRANSFER || type == Transaction.TransactionType.TRANSFER_IN) {
+            throw new RuntimeException("Transferências não são estornadas por perna; faça a transferência inversa");
+        }
+        if (transactionRepository.existsByReversedTransactionId(id)
+                || archivedTransactionRepository.existsByReversedTransactionId(id)) {
+            throw new RuntimeException("Transação já estornada: " + id);
+        }
+
+        Long accountId = original.getAccount().getId();
+        Transaction reversal = newTransaction(accountId, null, type.isCredit()
+                        ? Transaction.TransactionType.REVERSAL_DEBIT
+                        : Transaction.TransactionType.REVERSAL_CREDIT,
+                original.getAmount(), "Estorno da transação " + id, LocalDateTime.now());
+        if (type.isCredit()) {
+            balanceUpdater.debit(accountId, original.getAmount(), reversal.getTransactionDate());
+        } else {
+            balanceUpdater.credit(accountId, original.getAmount(), reversal.getTransactionDate());
+        }
+
+        // A restrição única em reversed_transaction_id barra dois estornos concorrentes
+        reversal.setReversedTransaction(original);
+        return toDTO(transactionRepository.saveAndFlush(reversal));
+    }
+
+    // Busca-se sempre um registro a mais para saber se existe próxima página sem COUNT
+    private PageDTO<TransactionDTO> toPage(List<TransactionDTO> rows, int pageSize) {
+        List<TransactionDTO> content = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            TransactionDTO last = content.get(content.size() - 1);
+            nextCursor = CursorCodec.encodeDateAndId(last.getTransactionDate(), last.getId());
+        }
+        return new PageDTO<>(content, nextCursor);
     }
 
-    private TransactionDTO toDTO(Transaction transaction) {
+    TransactionDTO toDTO(Transaction transaction) {
         return new TransactionDTO(
                 transaction.getId(),
                 transaction.getAccount().getId(),
                 transaction.getAmount(),
                 transaction.getTransactionType(),
                 transaction.getDescription(),
-                transaction.getTransactionDate()
+                transaction.getTransactionDate(),
+                transaction.getCounterpartyAccount() != null ? transaction.getCounterpartyAccount().getId() : null
         );
     }
+
+    // Junta dois cursores já ordenados por (data, id) sem materializar nenhum dos dois
+    private static final class MergingIterator implements Iterator<TransactionDTO> {
+        private final Iterator<TransactionDTO> first;
+        private final Iterator<TransactionDTO> second;
+        private TransactionDTO nextFirst;
+        private TransactionDTO nextSecond;
+
+        private MergingIterator(Iterator<TransactionDTO> first, Iterator<TransactionDTO> second) {
+            this.first = first;
+            this.second = second;
+            this.nextFirst = first.hasNext() ? first.next() : null;
+            this.nextSecond = second.hasNext() ? second.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextFirst != null || nextSecond != null;
+        }
+
+        @Override
+        public TransactionDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            TransactionDTO next;
+            if (nextSecond == null || (nextFirst != null && OLDEST_FIRST.compare(nextFirst, nextSecond) <= 0)) {
+                next = nextFirst;
+                nextFirst = first.hasNext() ? first.next() : null;
+            } else {
+                next = nextSecond;
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+            return next;
+        }
+    }
+
+    public enum ExportFormat {
+        NDJSON, CSV
+    }
 }
@@ -0,0 +1,159 @@
+package com.fintech.service;
+
+import com.fintech.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Índice em memória de emails e CPFs já cadastrados, para evitar ida ao banco quando a chave é nova.
+// Só responde "com certeza não existe" ou "talvez exista": a constraint unique continua sendo a garantia final.
+@Component
+@Slf4j
+public class UniquenessGuard {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 1 << 16;
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D");
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // null até o aquecimento terminar: nesse intervalo toda verificação vai ao banco
+    private volatile Index index;
+    // Índice em construção: recebe também as inserções feitas durante a reconstrução
+    private volatile Index pending;
+
+    public UniquenessGuard(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    public boolean mightContainEmail(String email) {
+        Index current = index;
+        return current == null || current.emails.mightContain(normalizeEmail(email));
+    }
+
+    public boolean mightContainCpf(String cpf) {
+        Index current = index;
+        return current == null || current.cpfs.mightContain(normalizeCpf(cpf));
+    }
+
+    // Chamado antes do commit: se a transação falhar, a chave fica apenas como falso positivo
+    public void registered(String email, String cpf) {
+        Index current = index;
+        if (current != null) {
+            current.add(email, cpf);
+            if (current.insertions.get() > current.capacity) {
+                rebuildAfterCommit();
+            }
+        }
+        Index next = pending;
+        if (next != null) {
+            next.add(email, cpf);
+        }
+    }
+
+    // Filtro de Bloom não remove chaves: as liberadas viram falsos positivos até a próxima reconstrução
+    public void released(String email, String cpf) {
+        Index current = index;
+        if (current == null) {
+            return;
+        }
+        long released = (email != null ? 1 : 0) + (cpf != null ? 1 : 0);
+        if (current.stale.addAndGet(released) > current.capacity / 4) {
+            rebuildAfterCommit();
+        }
+    }
+
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            Index next = new Index(Math.max(MIN_CAPACITY, userRepository.count() * 2));
+            pending = next;
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserRepository.UniqueKeysView> keys = userRepository.streamUniqueKeys()) {
+                    keys.forEach(key -> next.add(key.getEmail(), key.getCpf()));
+                }
+            });
+            index = next;
+            log.info("Índice de unicidade carregado: {} usuários em {} ms",
+                    next.insertions.get(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao carregar índice de unicidade; verificações seguirão no banco", e);
+        } finally {
+            pending = null;
+            rebuilding.set(false);
+        }
+    }
+
+    private void rebuildAfterCommit() {
+        if (rebuilding.get()) {
+            return;
+        }
+        // Depois do commit, para que a varredura já enxergue a linha recém-gravada
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.runAsync(UniquenessGuard.this::rebuild);
+                }
+            });
+        } else {
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static String normalizeCpf(String cpf) {
+        return NON_DIGITS.matcher(cpf).replaceAll("");
+    }
+
+    private static final class Index {
+        private final long capacity;
+        private final BloomFilter emails;
+        private final BloomFilter cpfs;
+        private final AtomicLong insertions = new AtomicLong();
+        private final AtomicLong stale = new AtomicLong();
+
+        private Index(long capacity) {
+            this.capacity = capacity;
+            this.emails = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+            this.cpfs = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        }
+
+        private void add(String email, String cpf) {
+            if (email != null) {
+                emails.put(normalizeEmail(email));
+            }
+            if (cpf != null) {
+                cpfs.put(normalizeCpf(cpf));
+            }
+            insertions.incrementAndGet();
+        }
+    }
+}
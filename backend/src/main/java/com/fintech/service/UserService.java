@@ -1,12 +1,22 @@
 package com.fintech.service;
 
+import com.fintech.config.CacheConfig;
+import com.fintech.config.ReplicaRoutingDataSource;
+import com.fintech.dto.PageDTO;
 import com.fintech.dto.UserDTO;
 import com.fintech.model.User;
 import com.fintech.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -15,22 +25,24 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final Pattern EMAIL_PATTERN =
+            Pattern.compile("^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
+
     private final UserRepository userRepository;
+    private final UniquenessGuard uniquenessGuard;
+    private final PortfolioSummaryService portfolioSummaryService;
 
-    private void validateEmail(String email) {
+    void validateEmail(String email) {
         if (email == null || email.trim().isEmpty()) {
             throw new RuntimeException("Email não pode ser vazio");
         }
         
-        String emailRegex = "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$";
-        Pattern pattern = Pattern.compile(emailRegex);
-        
-        if (!pattern.matcher(email).matches()) {
+        if (!EMAIL_PATTERN.matcher(email).matches()) {
             throw new RuntimeException("Email inválido. Formato esperado: exemplo@dominio.com");
         }
     }
 
-    private UserDTO toDTO(User user) {
+    UserDTO toDTO(User user) {
         return new UserDTO(
                 user.getId(),
                 user.getName(),
@@ -41,62 +53,129 @@ public class UserService {
     }
 
     @Transactional(readOnly = true)
-    public List<UserDTO> findAll() {
-        return userRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public PageDTO<UserDTO> findAll(String cursor, Integer limit) {
+        int pageSize = CursorCodec.pageSize(limit);
+        Long afterId = cursor == null || cursor.isEmpty() ? 0L : CursorCodec.decodeId(cursor);
+        List<UserDTO> rows = userRepository.findPageAfter(afterId, Limit.of(pageSize + 1));
+
+        List<UserDTO> content = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextCursor = rows.size() > pageSize
+                ? CursorCodec.encodeId(content.get(content.size() - 1).getId())
+                : null;
+        return new PageDTO<>(content, nextCursor);
     }
 
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id", sync = true)
     @Transactional(readOnly = true)
     public UserDTO findById(Long id) {
-        User user = userRepository.findById(id)
+        return ReplicaRoutingDataSource.onPrimary(() -> load(id));
+    }
+
+    // Mesma chave com versão das contas (AccountService.findById): corpo nunca mais antigo que o ETag
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id + ':' + #changeTag", sync = true)
+    @Transactional(readOnly = true)
+    public UserDTO findById(Long id, String changeTag) {
+        return ReplicaRoutingDataSource.onPrimary(() -> load(id));
+    }
+
+    // Versão do usuário, base do ETag: uma consulta pela chave primária
+    @Transactional(readOnly = true)
+    public String changeTag(Long id) {
+        return userRepository.findVersionById(id)
+                .map(String::valueOf)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + id));
+    }
+
+    private UserDTO load(Long id) {
+        return userRepository.findDTOById(id)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + id));
-        return toDTO(user);
     }
 
     @Transactional
     public UserDTO create(UserDTO userDTO) {
         validateEmail(userDTO.getEmail());
-        
-        if (userRepository.existsByEmail(userDTO.getEmail())) {
-            throw new RuntimeException("Email já cadastrado: " + userDTO.getEmail());
-        }
-        if (userRepository.existsByCpf(userDTO.getCpf())) {
-            throw new RuntimeException("CPF já cadastrado: " + userDTO.getCpf());
-        }
+        ensureUnique(null, userDTO.getEmail(), userDTO.getCpf());
 
         User user = new User();
         user.setName(userDTO.getName());
         user.setEmail(userDTO.getEmail());
         user.setCpf(userDTO.getCpf());
 
-        User savedUser = userRepository.save(user);
+        User savedUser = saveUnique(user);
+        portfolioSummaryService.userCreated(savedUser.getId());
+        uniquenessGuard.registered(savedUser.getEmail(), savedUser.getCpf());
         return toDTO(savedUser);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id")
     @Transactional
-    public UserDTO update(Long id, UserDTO userDTO) {
+    public UserDTO update(Long id, UserDTO userDTO, Collection<String> expectedTags) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + id));
+        // Sem trava: uma alteração concorrente depois desta checagem esbarra no @Version ao gravar
+        if (expectedTags != null && !expectedTags.contains(String.valueOf(user.getVersion()))) {
+            throw new PreconditionFailedException("Usuário alterado desde a versão informada em If-Match: " + id);
+        }
 
-        if (!user.getEmail().equals(userDTO.getEmail()) && 
-            userRepository.existsByEmail(userDTO.getEmail())) {
-            throw new RuntimeException("Email já cadastrado: " + userDTO.getEmail());
+        String oldEmail = user.getEmail();
+        String oldCpf = user.getCpf();
+        boolean emailChanged = !oldEmail.equals(userDTO.getEmail());
+        boolean cpfChanged = !oldCpf.equals(userDTO.getCpf());
+        if (emailChanged || cpfChanged) {
+            ensureUnique(id, emailChanged ? userDTO.getEmail() : null, cpfChanged ? userDTO.getCpf() : null);
         }
 
         user.setName(userDTO.getName());
         user.setEmail(userDTO.getEmail());
         user.setCpf(userDTO.getCpf());
 
-        User updatedUser = userRepository.save(user);
+        User updatedUser = saveUnique(user);
+        uniquenessGuard.registered(emailChanged ? updatedUser.getEmail() : null, cpfChanged ? updatedUser.getCpf() : null);
+        uniquenessGuard.released(emailChanged ? oldEmail : null, cpfChanged ? oldCpf : null);
         return toDTO(updatedUser);
     }
 
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.ACCOUNTS_BY_USER, key = "#id")
+    })
     @Transactional
     public void delete(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("Usuário não encontrado com ID: " + id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + id));
+        portfolioSummaryService.deleteByUserId(id);
+        userRepository.delete(user);
+        uniquenessGuard.released(user.getEmail(), user.getCpf());
+    }
+
+    // Chave nula não é verificada. Só consulta o banco quando o índice não descarta a chave,
+    // e aí numa única consulta para email e CPF
+    private void ensureUnique(Long id, String email, String cpf) {
+        boolean checkEmail = email != null && uniquenessGuard.mightContainEmail(email);
+        boolean checkCpf = cpf != null && uniquenessGuard.mightContainCpf(cpf);
+        if (!checkEmail && !checkCpf) {
+            return;
+        }
+
+        List<UserRepository.UniqueKeysView> existing = userRepository.findByEmailOrCpf(email, cpf).stream()
+                .filter(keys -> !keys.getId().equals(id))
+                .collect(Collectors.toList());
+        if (email != null && existing.stream().anyMatch(keys -> email.equals(keys.getEmail()))) {
+            throw new RuntimeException("Email já cadastrado: " + email);
+        }
+        if (cpf != null && existing.stream().anyMatch(keys -> cpf.equals(keys.getCpf()))) {
+            throw new RuntimeException("CPF já cadastrado: " + cpf);
+        }
+    }
+
+    // Rede de segurança para a corrida entre duas criações com a mesma chave
+    private User saveUnique(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Email ou CPF já cadastrado");
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new PreconditionFailedException("Usuário alterado por outra requisição: " + user.getId());
         }
-        userRepository.deleteById(id);
     }
 }
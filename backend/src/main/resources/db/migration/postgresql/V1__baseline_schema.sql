@@ -0,0 +1,108 @@
+-- Esquema equivalente ao que o ddl-auto: update criava. Bancos já criados pelo ddl-auto entram com
+-- baseline na versão 0 e passam por aqui também: só o que ainda não existe é criado.
+
+create sequence if not exists transactions_seq start with 1 increment by 50;
+create sequence if not exists account_number_seq start with 1 increment by 1000;
+
+create table if not exists users (
+    id bigserial not null,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    cpf varchar(255) not null,
+    created_at timestamp(6),
+    constraint users_pkey primary key (id),
+    constraint uk_users_email unique (email),
+    constraint uk_users_cpf unique (cpf)
+);
+
+create table if not exists accounts (
+    id bigserial not null,
+    account_number varchar(255) not null,
+    user_id bigint not null,
+    balance numeric(19,2) not null,
+    account_type varchar(255) not null
+        check (account_type in ('CHECKING','SAVINGS','INVESTMENT')),
+    created_at timestamp(6),
+    version bigint,
+    constraint accounts_pkey primary key (id),
+    constraint uk_accounts_account_number unique (account_number),
+    constraint fk_accounts_user foreign key (user_id) references users
+);
+
+create table if not exists transactions (
+    id bigint not null,
+    account_id bigint not null,
+    counterparty_account_id bigint,
+    amount numeric(19,2) not null,
+    transaction_type varchar(255) not null
+        check (transaction_type in ('DEPOSIT','WITHDRAWAL','TRANSFER','PAYMENT','TRANSFER_IN',
+                                    'REVERSAL_CREDIT','REVERSAL_DEBIT')),
+    reversed_transaction_id bigint,
+    description varchar(500),
+    transaction_date timestamp(6),
+    constraint transactions_pkey primary key (id),
+    constraint uk_transactions_reversed_transaction unique (reversed_transaction_id),
+    constraint fk_transactions_account foreign key (account_id) references accounts,
+    constraint fk_transactions_counterparty foreign key (counterparty_account_id) references accounts,
+    constraint fk_transactions_reversed_transaction foreign key (reversed_transaction_id) references transactions
+);
+
+-- Bancos do ddl-auto já tinham as tabelas, mas não as colunas criadas depois dele (create table if not exists
+-- não as acrescenta). As chaves estrangeiras delas vêm com a tabela particionada da V2
+alter table accounts add column if not exists version bigint;
+update accounts set version = 0 where version is null;
+alter table transactions add column if not exists counterparty_account_id bigint;
+alter table transactions add column if not exists reversed_transaction_id bigint;
+
+-- No ddl-auto transactions.id era identidade, sem transactions_seq: a sequence precisa partir do maior id
+-- já gravado, senão os novos lançamentos repetem ids (e a chave (id, transaction_date) da V2 não recusa)
+select setval('transactions_seq', greatest(max(id), (select last_value from transactions_seq)))
+from transactions
+having max(id) is not null;
+
+create index if not exists idx_transactions_date_id on transactions (transaction_date, id);
+create index if not exists idx_transactions_account_date_id on transactions (account_id, transaction_date, id);
+
+create table if not exists balance_checkpoints (
+    id bigserial not null,
+    account_id bigint not null,
+    as_of timestamp(6) not null,
+    balance numeric(19,2) not null,
+    created_at timestamp(6),
+    constraint balance_checkpoints_pkey primary key (id)
+);
+
+create index if not exists idx_balance_checkpoints_account_as_of on balance_checkpoints (account_id, as_of);
+
+create table if not exists balance_snapshots (
+    id bigserial not null,
+    account_id bigint not null,
+    snapshot_date date not null,
+    closing_balance numeric(19,2) not null,
+    updated_at timestamp(6),
+    constraint balance_snapshots_pkey primary key (id),
+    constraint uk_balance_snapshots_account_date unique (account_id, snapshot_date)
+);
+
+create table if not exists idempotency_keys (
+    idempotency_key varchar(255) not null,
+    operation varchar(32) not null,
+    request_hash varchar(64) not null,
+    response_body varchar(4000),
+    created_at timestamp(6) not null,
+    constraint idempotency_keys_pkey primary key (idempotency_key)
+);
+
+create index if not exists idx_idempotency_keys_created_at on idempotency_keys (created_at);
+
+create table if not exists portfolio_summaries (
+    id bigserial not null,
+    user_id bigint not null,
+    account_type varchar(255) not null
+        check (account_type in ('CHECKING','SAVINGS','INVESTMENT')),
+    balance numeric(19,2) not null,
+    account_count bigint not null,
+    last_transaction_at timestamp(6),
+    constraint portfolio_summaries_pkey primary key (id),
+    constraint uk_portfolio_summaries_user_type unique (user_id, account_type)
+);
@@ -0,0 +1,104 @@
+-- transactions particionada por mês de transaction_date. Consultas por conta e período só visitam
+-- as partições dos meses pedidos, e cada partição tem o próprio índice (account_id, transaction_date, id).
+--
+-- Restrições do particionamento no PostgreSQL:
+-- * a chave primária precisa conter a coluna de partição: passa a ser (id, transaction_date);
+-- * não há UNIQUE global fora da chave: "um estorno por transação" passa para transaction_reversals,
+--   mantida por gatilho, e a FK de reversed_transaction_id deixa de existir.
+
+alter table transactions rename to transactions_unpartitioned;
+
+create table transactions (
+    id bigint not null,
+    account_id bigint not null,
+    counterparty_account_id bigint,
+    amount numeric(19,2) not null,
+    transaction_type varchar(255) not null
+        check (transaction_type in ('DEPOSIT','WITHDRAWAL','TRANSFER','PAYMENT','TRANSFER_IN',
+                                    'REVERSAL_CREDIT','REVERSAL_DEBIT')),
+    reversed_transaction_id bigint,
+    description varchar(500),
+    transaction_date timestamp(6) not null,
+    constraint pk_transactions primary key (id, transaction_date),
+    constraint fk_transactions_account foreign key (account_id) references accounts,
+    constraint fk_transactions_counterparty foreign key (counterparty_account_id) references accounts
+) partition by range (transaction_date);
+
+-- Datas fora das partições mensais (lançamentos retroativos muito antigos, meses ainda não criados).
+-- Um mês só pode ganhar partição enquanto a default não tiver linhas dele: por isso as partições são
+-- criadas com antecedência (TransactionPartitionMaintainer)
+create table transactions_default partition of transactions default;
+
+-- Cria as partições mensais que faltam entre os meses de from_month e to_month; devolve quantas criou
+create or replace function create_transactions_partitions(from_month date, to_month date) returns integer
+language plpgsql as $$
+declare
+    partition_start date := date_trunc('month', from_month)::date;
+    partition_name text;
+    created integer := 0;
+begin
+    while partition_start <= to_month loop
+        partition_name := format('transactions_y%sm%s', to_char(partition_start, 'YYYY'), to_char(partition_start, 'MM'));
+        if to_regclass(partition_name) is null then
+            execute format('create table %I partition of transactions for values from (%L) to (%L)',
+                           partition_name, partition_start, (partition_start + interval '1 month')::date);
+            created := created + 1;
+        end if;
+        partition_start := (partition_start + interval '1 month')::date;
+    end loop;
+    return created;
+end;
+$$;
+
+select create_transactions_partitions(
+        coalesce((select min(transaction_date) from transactions_unpartitioned), localtimestamp)::date,
+        (localtimestamp + interval '3 months')::date);
+
+insert into transactions (id, account_id, counterparty_account_id, amount, transaction_type,
+                          reversed_transaction_id, description, transaction_date)
+select id, account_id, counterparty_account_id, amount, transaction_type,
+       reversed_transaction_id, description, transaction_date
+from transactions_unpartitioned;
+
+-- Um estorno por transação: a chave primária recusa o segundo (mesma violação de unicidade que o
+-- UNIQUE em reversed_transaction_id gerava)
+create table transaction_reversals (
+    reversed_transaction_id bigint not null,
+    reversal_transaction_id bigint not null,
+    constraint pk_transaction_reversals primary key (reversed_transaction_id)
+);
+
+insert into transaction_reversals (reversed_transaction_id, reversal_transaction_id)
+select reversed_transaction_id, id
+from transactions_unpartitioned
+where reversed_transaction_id is not null;
+
+create or replace function register_transaction_reversal() returns trigger
+language plpgsql as $$
+begin
+    if tg_op = 'INSERT' then
+        insert into transaction_reversals (reversed_transaction_id, reversal_transaction_id)
+        values (new.reversed_transaction_id, new.id);
+    else
+        delete from transaction_reversals
+        where reversed_transaction_id = old.reversed_transaction_id and reversal_transaction_id = old.id;
+    end if;
+    return null;
+end;
+$$;
+
+create trigger trg_transactions_reversal_insert after insert on transactions
+    for each row when (new.reversed_transaction_id is not null)
+    execute function register_transaction_reversal();
+
+create trigger trg_transactions_reversal_delete after delete on transactions
+    for each row when (old.reversed_transaction_id is not null)
+    execute function register_transaction_reversal();
+
+drop table transactions_unpartitioned;
+
+-- Índices no pai: o PostgreSQL cria um por partição, inclusive nas criadas depois
+create index idx_transactions_account_date_id on transactions (account_id, transaction_date, id);
+create index idx_transactions_date_id on transactions (transaction_date, id);
+
+analyze transactions;
@@ -0,0 +1,39 @@
+-- Arquivo das transações mais antigas que a retenção (TransactionArchiver). Sem chaves estrangeiras:
+-- o histórico sobrevive ao encerramento da conta.
+create table archived_transactions (
+    id bigint not null,
+    account_id bigint not null,
+    counterparty_account_id bigint,
+    amount numeric(19,2) not null,
+    transaction_type varchar(255) not null
+        check (transaction_type in ('DEPOSIT','WITHDRAWAL','TRANSFER','PAYMENT','TRANSFER_IN',
+                                    'REVERSAL_CREDIT','REVERSAL_DEBIT')),
+    reversed_transaction_id bigint,
+    description varchar(500),
+    transaction_date timestamp(6) not null,
+    archived_at timestamp(6) not null,
+    constraint archived_transactions_pkey primary key (id)
+);
+
+create index idx_archived_transactions_account_date_id on archived_transactions (account_id, transaction_date, id);
+create index idx_archived_transactions_reversed on archived_transactions (reversed_transaction_id);
+
+-- A seleção de lotes procura estornos que apontam para cada candidata
+create index idx_transactions_reversed on transactions (reversed_transaction_id)
+    where reversed_transaction_id is not null;
+
+-- Estorno arquivado continua valendo: a marca em transaction_reversals só sai quando o estorno é
+-- apagado de fato, não quando muda para archived_transactions (cópia feita antes do DELETE, mesma transação)
+create or replace function register_transaction_reversal() returns trigger
+language plpgsql as $$
+begin
+    if tg_op = 'INSERT' then
+        insert into transaction_reversals (reversed_transaction_id, reversal_transaction_id)
+        values (new.reversed_transaction_id, new.id);
+    elsif not exists (select 1 from archived_transactions a where a.id = old.id) then
+        delete from transaction_reversals
+        where reversed_transaction_id = old.reversed_transaction_id and reversal_transaction_id = old.id;
+    end if;
+    return null;
+end;
+$$;
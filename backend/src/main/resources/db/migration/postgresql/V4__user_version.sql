@@ -0,0 +1,3 @@
+-- Versão otimista dos usuários (ETag de GET /api/users/{id} e If-Match no PUT)
+alter table users add column version bigint;
+update users set version = 0 where version is null;
@@ -0,0 +1,48 @@
+package com.fintech.config;
+
+import com.fintech.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:faststartdb")
+@ActiveProfiles("faststart")
+@AutoConfigureWebMvc
+class FastStartProfileTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void testInicializacaoPreguicosaComExcecoes() throws Exception {
+        // 1. Controllers ficam para a primeira requisição; JPA e jobs agendados sobem com a aplicação
+        assertFalse(beanFactory.containsSingleton("userController"));
+        assertTrue(beanFactory.containsSingleton("entityManagerFactory"));
+        assertTrue(beanFactory.containsSingleton("idempotencyService"));
+        assertTrue(beanFactory.containsSingleton("balanceLedger"));
+
+        // 2. A primeira requisição cria o que precisa
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        mockMvc.perform(get("/api/users").param("limit", "1"))
+                .andExpect(status().isOk());
+        assertTrue(beanFactory.containsSingleton("userController"));
+
+        // 3. Sem dados fake neste perfil
+        assertEquals(0, webApplicationContext.getBean(UserRepository.class).count());
+    }
+}
@@ -0,0 +1,189 @@
+package com.fintech.config;
+
+import com.fintech.dto.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Dois H2 em memória: a "réplica" recebe uma cópia do primário no início do teste e não acompanha
+// as escritas seguintes, o que deixa visível de onde cada leitura veio
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primarydb",
+        "fintech.replicas.enabled=true",
+        "fintech.replicas.urls=jdbc:h2:mem:replicadb;IFEXISTS=TRUE",
+        "fintech.replicas.health-check-interval=PT1H"
+})
+@AutoConfigureWebMvc
+@Import(ReplicaRoutingTest.LeituraEEscritaController.class)
+class ReplicaRoutingTest {
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private ReadYourWritesFilter readYourWritesFilter;
+
+    @Test
+    void testLeiturasNaReplicaEEscritasNoPrimario() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(readYourWritesFilter)
+                .build();
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+            copiarPrimarioPara(replica);
+            replicaRoutingDataSource.checkReplicas();
+
+            // 1. readOnly vai para a réplica; leitura e escrita, para o primário
+            TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+            leitura.setReadOnly(true);
+            assertEquals("REPLICADB", leitura.execute(status -> bancoAtual()));
+            assertEquals("PRIMARYDB", new TransactionTemplate(transactionManager).execute(status -> bancoAtual()));
+
+            // 2. O cliente que escreveu lê a própria escrita; os demais leem da réplica, ainda sem ela
+            UserDTO usuario = new UserDTO();
+            usuario.setName("Usuario Replica");
+            usuario.setEmail("replica@email.com");
+            usuario.setCpf("27182818284");
+            MockHttpServletResponse criado = mockMvc.perform(post("/api/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(usuario)))
+                    .andExpect(status().isCreated())
+                    .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                    .andReturn().getResponse();
+            Cookie primario = criado.getCookie(ReadYourWritesFilter.COOKIE);
+            Long userId = objectMapper.readValue(criado.getContentAsString(), UserDTO.class).getId();
+
+            mockMvc.perform(get("/api/users").param("limit", "500").cookie(primario))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].email", hasItem("replica@email.com")));
+            mockMvc.perform(get("/api/users").param("limit", "500"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].email", not(hasItem("replica@email.com"))));
+
+            // 3. Por id, o ETag vem de onde o cliente lê: quem escreveu vê a alteração na hora; os demais seguem
+            //    com a versão da réplica e recebem o corpo guardado para ela, nunca um corpo de outra versão
+            String etag = mockMvc.perform(get("/api/users/{id}", userId).cookie(primario))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value("Usuario Replica"))
+                    .andReturn().getResponse().getHeader("ETag");
+            copiarPrimarioPara(replica);
+            mockMvc.perform(get("/api/users/{id}", userId).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+            usuario.setName("Usuario Replica Alterado");
+            mockMvc.perform(put("/api/users/{id}", userId)
+                            .cookie(primario)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(usuario)))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/users/{id}", userId).cookie(primario))
+                    .andExpect(jsonPath("$.name").value("Usuario Replica Alterado"));
+            mockMvc.perform(get("/api/users/{id}", userId))
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(jsonPath("$.name").value("Usuario Replica"));
+
+            // 4. Sem open-in-view, cada transação da requisição pede a própria conexão: a escrita depois de uma
+            //    leitura readOnly não herda a conexão da réplica
+            mockMvc.perform(get("/test/leitura-e-escrita"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.leitura").value("REPLICADB"))
+                    .andExpect(jsonPath("$.escrita").value("PRIMARYDB"));
+
+            // 5. Réplica fora do ar: a checagem a tira do rodízio e as leituras voltam ao primário
+            try (Statement statement = replica.createStatement()) {
+                statement.execute("shutdown");
+            }
+        }
+        replicaRoutingDataSource.checkReplicas();
+        mockMvc.perform(get("/api/users").param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].email", hasItem("replica@email.com")));
+    }
+
+    // Uma leitura readOnly seguida de uma escrita na mesma requisição GET, as duas pelo EntityManager
+    @RestController
+    static class LeituraEEscritaController {
+
+        @PersistenceContext
+        private EntityManager entityManager;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @GetMapping("/test/leitura-e-escrita")
+        Map<String, Object> leituraEEscrita() {
+            TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+            leitura.setReadOnly(true);
+            Object bancoDaLeitura = leitura.execute(status -> bancoAtual());
+            Object bancoDaEscrita = new TransactionTemplate(transactionManager).execute(status -> {
+                entityManager.createNativeQuery("update users set name = name where id = 1").executeUpdate();
+                return bancoAtual();
+            });
+            return Map.of("leitura", bancoDaLeitura, "escrita", bancoDaEscrita);
+        }
+
+        private Object bancoAtual() {
+            return entityManager.createNativeQuery("select database()").getSingleResult();
+        }
+    }
+
+    private String bancoAtual() {
+        return jdbcTemplate.queryForObject("select database()", String.class);
+    }
+
+    private void copiarPrimarioPara(Connection replica) throws Exception {
+        Path script = Files.createTempFile("primarydb", ".sql");
+        try {
+            jdbcTemplate.execute("script to '" + script.toAbsolutePath() + "'");
+            try (Statement statement = replica.createStatement()) {
+                statement.execute("drop all objects");
+                statement.execute("runscript from '" + script.toAbsolutePath() + "'");
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.fintech.controller;
 
+import com.fintech.config.CacheConfig;
 import com.fintech.dto.AccountDTO;
+import com.fintech.dto.TransactionDTO;
 import com.fintech.model.Account;
+import com.fintech.model.Transaction;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,6 +38,12 @@ class AccountControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @org.junit.jupiter.api.BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
@@ -89,4 +104,187 @@ class AccountControllerIntegrationTest {
         mockMvc.perform(delete("/api/accounts/{id}", accountId))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void testExtratoComSnapshotDeSaldo() throws Exception {
+        AccountDTO novaConta = new AccountDTO();
+        novaConta.setUserId(2L);
+        novaConta.setBalance(new BigDecimal("1000.00"));
+        String response = mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novaConta)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long accountId = objectMapper.readValue(response, AccountDTO.class).getId();
+
+        movimentar(accountId, "200.00", Transaction.TransactionType.DEPOSIT);
+        movimentar(accountId, "50.00", Transaction.TransactionType.WITHDRAWAL);
+
+        // 1. Extrato de hoje: abertura 1000, duas movimentações, fechamento 1150
+        LocalDate hoje = LocalDate.now();
+        mockMvc.perform(get("/api/accounts/{id}/statement", accountId)
+                        .param("from", hoje.toString())
+                        .param("to", hoje.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openingBalance").value(1000.00))
+                .andExpect(jsonPath("$.closingBalance").value(1150.00))
+                .andExpect(jsonPath("$.transactions.length()").value(2));
+
+        // 2. Janela futura: abertura vem do snapshot de hoje, sem transações
+        LocalDate amanha = hoje.plusDays(1);
+        mockMvc.perform(get("/api/accounts/{id}/statement", accountId)
+                        .param("from", amanha.toString())
+                        .param("to", amanha.plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openingBalance").value(1150.00))
+                .andExpect(jsonPath("$.closingBalance").value(1150.00))
+                .andExpect(jsonPath("$.transactions.length()").value(0));
+
+        // 3. O snapshot fica no dia e no instante do transactionDate do último lançamento
+        LocalDateTime ultimoLancamento = jdbcTemplate.queryForObject(
+                "select max(transaction_date) from transactions where account_id = ?", LocalDateTime.class, accountId);
+        assertEquals(ultimoLancamento.toLocalDate(), jdbcTemplate.queryForObject(
+                "select max(snapshot_date) from balance_snapshots where account_id = ?", LocalDate.class, accountId));
+        assertEquals(ultimoLancamento, jdbcTemplate.queryForObject(
+                "select max(updated_at) from balance_snapshots where account_id = ?", LocalDateTime.class, accountId));
+    }
+
+    @Test
+    void testCacheDeContaInvalidadoAposTransacao() throws Exception {
+        AccountDTO novaConta = new AccountDTO();
+        novaConta.setUserId(2L);
+        novaConta.setBalance(new BigDecimal("300.00"));
+        String response = mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novaConta)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long accountId = objectMapper.readValue(response, AccountDTO.class).getId();
+
+        // 1. Segunda leitura vem do cache
+        Cache<?, ?> contas = (Cache<?, ?>) cacheManager.getCache(CacheConfig.ACCOUNTS).getNativeCache();
+        mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(jsonPath("$.balance").value(300.00));
+        long acertos = contas.stats().hitCount();
+        mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(jsonPath("$.balance").value(300.00));
+        assertEquals(acertos + 1, contas.stats().hitCount());
+
+        // 2. Após o commit da transação, conta e listagem do titular refletem o novo saldo
+        mockMvc.perform(get("/api/accounts/user/{userId}", 2L))
+                .andExpect(status().isOk());
+        movimentar(accountId, "120.00", Transaction.TransactionType.DEPOSIT);
+
+        mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(jsonPath("$.balance").value(420.00));
+        mockMvc.perform(get("/api/accounts/user/{userId}", 2L))
+                .andExpect(jsonPath("$[?(@.id == " + accountId + ")].balance").value(420.00));
+
+        // 3. Criar e excluir contas invalida a listagem do titular
+        String outraConta = mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novaConta)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long outraContaId = objectMapper.readValue(outraConta, AccountDTO.class).getId();
+        mockMvc.perform(get("/api/accounts/user/{userId}", 2L))
+                .andExpect(jsonPath("$[?(@.id == " + outraContaId + ")]").isNotEmpty());
+
+        mockMvc.perform(delete("/api/accounts/{id}", outraContaId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/accounts/user/{userId}", 2L))
+                .andExpect(jsonPath("$[?(@.id == " + outraContaId + ")]").isEmpty());
+
+        // 4. Alteração feita por outro nó, sem evicção neste: o GET por id já lê a versão para o ETag e o corpo
+        //    fica na chave com ela, então não serve o saldo antigo (a listagem espera o TTL)
+        jdbcTemplate.update("update accounts set balance = 999.00, version = version + 1 where id = ?", accountId);
+        mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(jsonPath("$.balance").value(999.00));
+    }
+
+    @Test
+    void testGetCondicionalEIfMatch() throws Exception {
+        AccountDTO novaConta = new AccountDTO();
+        novaConta.setUserId(2L);
+        novaConta.setBalance(new BigDecimal("500.00"));
+        String response = mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novaConta)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long accountId = objectMapper.readValue(response, AccountDTO.class).getId();
+
+        // 1. Mesma versão: 304 sem corpo, para a conta e para a listagem de transações
+        String etagConta = mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/accounts/{id}", accountId).header("If-None-Match", etagConta))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        String etagTransacoes = mockMvc.perform(get("/api/transactions/account/{id}", accountId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/transactions/account/{id}", accountId).header("If-None-Match", etagTransacoes))
+                .andExpect(status().isNotModified());
+
+        // 2. Uma transação muda a versão: o corpo volta com o novo saldo
+        movimentar(accountId, "25.00", Transaction.TransactionType.DEPOSIT);
+        String etagAposDeposito = mockMvc.perform(get("/api/accounts/{id}", accountId).header("If-None-Match", etagConta))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(525.00))
+                .andReturn().getResponse().getHeader("ETag");
+        String transacoes = mockMvc.perform(get("/api/transactions/account/{id}", accountId)
+                        .header("If-None-Match", etagTransacoes))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andReturn().getResponse().getContentAsString();
+
+        // 3. Excluir o lançamento não muda o saldo, mas invalida o ETag da listagem
+        Long transacaoId = objectMapper.readTree(transacoes).get(0).get("id").asLong();
+        mockMvc.perform(delete("/api/transactions/{id}", transacaoId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/transactions/account/{id}", accountId).header("If-None-Match", etagAposDeposito))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        // 4. If-Match com versão antiga falha; com a atual, atualiza
+        novaConta.setAccountType(Account.AccountType.SAVINGS);
+        mockMvc.perform(put("/api/accounts/{id}", accountId)
+                        .header("If-Match", etagConta)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novaConta)))
+                .andExpect(status().isPreconditionFailed());
+        String etagAtual = mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(put("/api/accounts/{id}", accountId)
+                        .header("If-Match", etagAtual)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novaConta)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountType").value("SAVINGS"));
+        mockMvc.perform(get("/api/accounts/{id}", accountId).header("If-None-Match", etagAtual))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountType").value("SAVINGS"));
+    }
+
+    private void movimentar(Long accountId, String valor, Transaction.TransactionType tipo) throws Exception {
+        TransactionDTO transacao = new TransactionDTO();
+        transacao.setAccountId(accountId);
+        transacao.setAmount(new BigDecimal(valor));
+        transacao.setTransactionType(tipo);
+
+        mockMvc.perform(post("/api/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transacao)))
+                .andExpect(status().isCreated());
+    }
 }
@@ -1,19 +1,44 @@
 package com.fintech.controller;
 
+import com.fintech.dto.AccountDTO;
 import com.fintech.dto.TransactionDTO;
 import com.fintech.model.Transaction;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.service.InsufficientFundsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,6 +54,12 @@ class TransactionControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @org.junit.jupiter.api.BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
@@ -94,4 +125,357 @@ class TransactionControllerIntegrationTest {
         mockMvc.perform(delete("/api/transactions/{id}", transactionId))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void testPaginacaoPorCursor() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            TransactionDTO deposito = new TransactionDTO();
+            deposito.setAccountId(2L);
+            deposito.setAmount(new BigDecimal("10.00"));
+            deposito.setTransactionType(Transaction.TransactionType.DEPOSIT);
+            deposito.setDescription("Depósito paginado " + i);
+
+            mockMvc.perform(post("/api/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(deposito)))
+                    .andExpect(status().isCreated());
+        }
+
+        // 1. Primeira página com 2 itens traz o cursor da próxima
+        MvcResult primeiraPagina = mockMvc.perform(get("/api/transactions/account/{accountId}", 2L)
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        TransactionDTO[] itensPrimeiraPagina = objectMapper.readValue(
+                primeiraPagina.getResponse().getContentAsString(), TransactionDTO[].class);
+        String cursor = primeiraPagina.getResponse().getHeader("X-Next-Cursor");
+
+        // 2. Segunda página continua de onde a primeira parou, sem repetir registros
+        MvcResult segundaPagina = mockMvc.perform(get("/api/transactions/account/{accountId}", 2L)
+                        .param("limit", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andReturn();
+
+        TransactionDTO[] itensSegundaPagina = objectMapper.readValue(
+                segundaPagina.getResponse().getContentAsString(), TransactionDTO[].class);
+        assertTrue(itensSegundaPagina.length > 0);
+        for (TransactionDTO item : itensSegundaPagina) {
+            assertTrue(item.getId() < itensPrimeiraPagina[1].getId()
+                    || item.getTransactionDate().isBefore(itensPrimeiraPagina[1].getTransactionDate()));
+        }
+
+        // 3. Cursor malformado ou adulterado é erro do cliente
+        mockMvc.perform(get("/api/transactions/account/{accountId}", 2L).param("cursor", "nao-e-um-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users").param("cursor", Base64.getUrlEncoder().encodeToString("abc".getBytes())))
+                .andExpect(status().isBadRequest());
+
+        // 4. Limite acima do máximo devolve exatamente o máximo (500) e o cursor do resto
+        jdbcTemplate.update("insert into users (name, email, cpf, created_at, version) " +
+                "select 'Usuario Pagina ' || x, 'pagina' || x || '@email.com', '55' || lpad(x, 9, '0'), " +
+                "localtimestamp, 0 from system_range(1, 501)");
+        mockMvc.perform(get("/api/users").param("limit", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(500))
+                .andExpect(header().exists("X-Next-Cursor"));
+    }
+
+    @Test
+    void testExportacaoStreaming() throws Exception {
+        String transferencia = """
+                {"sourceAccountId": 1, "destinationAccountId": 3, "amount": 1.00, "description": "Exportada, com vírgula"}
+                """;
+        mockMvc.perform(post("/api/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transferencia))
+                .andExpect(status().isCreated());
+
+        // 1. NDJSON: uma transação por linha
+        MvcResult ndjson = mockMvc.perform(get("/api/transactions/account/{accountId}/export", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String ndjsonBody = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] linhas = ndjsonBody.trim().split("\n");
+        assertTrue(linhas.length > 0);
+        for (String linha : linhas) {
+            TransactionDTO transacao = objectMapper.readValue(linha, TransactionDTO.class);
+            assertEquals(1L, transacao.getAccountId());
+        }
+
+        // 2. CSV com cabeçalho
+        MvcResult csv = mockMvc.perform(get("/api/transactions/account/{accountId}/export", 1L)
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String csvBody = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertTrue(csvBody.startsWith("id,accountId,amount,transactionType,description,transactionDate,counterpartyAccountId\n"));
+        assertTrue(ndjsonBody.endsWith("}\n"));
+
+        // 3. Mesmas colunas nos dois formatos, inclusive a contraparte da transferência
+        List<String> campos = new ArrayList<>();
+        objectMapper.readTree(linhas[0]).fieldNames().forEachRemaining(campos::add);
+        assertEquals(String.join(",", campos), csvBody.substring(0, csvBody.indexOf('\n')));
+        TransactionDTO perna = null;
+        for (String linha : linhas) {
+            TransactionDTO transacao = objectMapper.readValue(linha, TransactionDTO.class);
+            if (Long.valueOf(3L).equals(transacao.getCounterpartyAccountId())) {
+                perna = transacao;
+            }
+        }
+        assertNotNull(perna);
+        assertTrue(csvBody.contains("\n" + perna.getId() + ",1," + perna.getAmount().toPlainString() + ","
+                + perna.getTransactionType() + ",\"Exportada, com vírgula\"," + perna.getTransactionDate() + ",3\n"));
+
+        // 4. Formato desconhecido é recusado antes de abrir o streaming
+        mockMvc.perform(get("/api/transactions/account/{accountId}/export", 1L)
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        // 5. Conta sem transações: NDJSON vazio, sem linha em branco
+        AccountDTO novaConta = new AccountDTO();
+        novaConta.setUserId(1L);
+        String conta = mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novaConta)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        MvcResult vazio = mockMvc.perform(get("/api/transactions/account/{accountId}/export",
+                        objectMapper.readValue(conta, AccountDTO.class).getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals("", mockMvc.perform(asyncDispatch(vazio))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    @Test
+    void testLoteDeTransacoes() throws Exception {
+        // 1. Array JSON: um depósito válido, um saque sem saldo, uma conta inexistente e um item inválido
+        String lote = """
+                [
+                  {"accountId": 3, "amount": 100.00, "transactionType": "DEPOSIT", "description": "Lote 1"},
+                  {"accountId": 3, "amount": 999999.00, "transactionType": "WITHDRAWAL", "description": "Lote 2"},
+                  {"accountId": 999, "amount": 10.00, "transactionType": "DEPOSIT", "description": "Lote 3"},
+                  {"accountId": 3, "transactionType": "DEPOSIT", "description": "Lote 4"},
+                  {"accountId": 3, "amount": 50.00, "transactionType": "PAYMENT", "description": "Lote 5"}
+                ]
+                """;
+
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(lote))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(5))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[1].index").value(2))
+                .andExpect(jsonPath("$.errors[2].index").value(3));
+
+        // 2. NDJSON: um objeto por linha
+        String ndjson = """
+                {"accountId": 3, "amount": 1.00, "transactionType": "DEPOSIT"}
+                {"accountId": 3, "amount": 2.00, "transactionType": "DEPOSIT"}
+                """;
+
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        // 3. Item que não converte (tipo desconhecido, valor não numérico, não objeto) falha sozinho
+        String malformados = """
+                {"accountId": 3, "amount": 3.00, "transactionType": "DEPOSIT"}
+                {"accountId": 3, "amount": 4.00, "transactionType": "PIX"}
+                {"accountId": 3, "amount": "quatro", "transactionType": "DEPOSIT"}
+                42
+                {"accountId": 3, "amount": 5.00, "transactionType": "DEPOSIT"}
+                """;
+
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(malformados))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(5))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].accountId").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value(startsWith("Item inválido")))
+                .andExpect(jsonPath("$.errors[1].index").value(2))
+                .andExpect(jsonPath("$.errors[2].index").value(3));
+    }
+
+    @Test
+    void testMetricasDeTransacao() throws Exception {
+        Timer depositos = meterRegistry.get("fintech.transactions.create")
+                .tag("type", "DEPOSIT").tag("outcome", "SUCCESS").timer();
+        Counter recusas = meterRegistry.get("fintech.balance.insufficient.funds")
+                .tag("type", "WITHDRAWAL").counter();
+        long depositosAntes = depositos.count();
+        double recusasAntes = recusas.count();
+
+        // 1. Depósito conta no timer do tipo, com resultado SUCCESS
+        TransactionDTO deposito = new TransactionDTO();
+        deposito.setAccountId(2L);
+        deposito.setAmount(new BigDecimal("10.00"));
+        deposito.setTransactionType(Transaction.TransactionType.DEPOSIT);
+        mockMvc.perform(post("/api/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(deposito)))
+                .andExpect(status().isCreated());
+        assertEquals(depositosAntes + 1, depositos.count());
+
+        // 2. Saque acima do saldo conta como recusa por saldo insuficiente
+        TransactionDTO saque = new TransactionDTO();
+        saque.setAccountId(2L);
+        saque.setAmount(new BigDecimal("999999999.00"));
+        saque.setTransactionType(Transaction.TransactionType.WITHDRAWAL);
+        assertInstanceOf(InsufficientFundsException.class, falha(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(saque))));
+        assertEquals(recusasAntes + 1, recusas.count());
+    }
+
+    @Test
+    void testTransferenciaEntreContas() throws Exception {
+        BigDecimal origemAntes = saldo(1L);
+        BigDecimal destinoAntes = saldo(3L);
+
+        // 1. Transferência gera as duas pernas, uma apontando para a outra conta
+        String transferencia = """
+                {"sourceAccountId": 1, "destinationAccountId": 3, "amount": 25.00, "description": "Aluguel"}
+                """;
+        mockMvc.perform(post("/api/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transferencia))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.debit.accountId").value(1))
+                .andExpect(jsonPath("$.debit.counterpartyAccountId").value(3))
+                .andExpect(jsonPath("$.debit.transactionType").value("TRANSFER"))
+                .andExpect(jsonPath("$.credit.accountId").value(3))
+                .andExpect(jsonPath("$.credit.counterpartyAccountId").value(1))
+                .andExpect(jsonPath("$.credit.transactionType").value("TRANSFER_IN"));
+
+        assertEquals(0, origemAntes.subtract(new BigDecimal("25.00")).compareTo(saldo(1L)));
+        assertEquals(0, destinoAntes.add(new BigDecimal("25.00")).compareTo(saldo(3L)));
+
+        // 2. Saldo insuficiente não altera nenhuma das contas
+        String semSaldo = """
+                {"sourceAccountId": 3, "destinationAccountId": 1, "amount": 999999999.00}
+                """;
+        assertInstanceOf(InsufficientFundsException.class, falha(post("/api/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(semSaldo)));
+        assertEquals(0, origemAntes.subtract(new BigDecimal("25.00")).compareTo(saldo(1L)));
+
+        // 3. Mesma conta na origem e no destino é rejeitada
+        String mesmaConta = """
+                {"sourceAccountId": 1, "destinationAccountId": 1, "amount": 1.00}
+                """;
+        assertEquals("Conta de origem e de destino devem ser diferentes", falha(post("/api/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mesmaConta)).getMessage());
+    }
+
+    @Test
+    void testChaveDeIdempotencia() throws Exception {
+        BigDecimal saldoAntes = saldo(2L);
+        String deposito = """
+                {"accountId": 2, "amount": 40.00, "transactionType": "DEPOSIT", "description": "Retentativa"}
+                """;
+
+        // 1. Oito tentativas simultâneas com a mesma chave: uma aplica, as outras recebem a mesma resposta
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<String>> respostas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return mockMvc.perform(post("/api/transactions")
+                                .header("Idempotency-Key", "deposito-retentativa-1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(deposito))
+                        .andExpect(status().isCreated())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString();
+            }));
+        }
+        largada.countDown();
+        Set<Long> ids = new HashSet<>();
+        for (Future<String> resposta : respostas) {
+            ids.add(objectMapper.readValue(resposta.get(1, TimeUnit.MINUTES), TransactionDTO.class).getId());
+        }
+        executor.shutdown();
+        assertEquals(1, ids.size());
+        assertEquals(0, saldoAntes.add(new BigDecimal("40.00")).compareTo(saldo(2L)));
+
+        // 2. Retentativa posterior devolve a mesma transação sem novo depósito
+        mockMvc.perform(post("/api/transactions")
+                        .header("Idempotency-Key", "deposito-retentativa-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(deposito))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(ids.iterator().next()));
+        assertEquals(0, saldoAntes.add(new BigDecimal("40.00")).compareTo(saldo(2L)));
+
+        // 3. Mesma chave com outro corpo é recusada
+        String outroDeposito = """
+                {"accountId": 2, "amount": 41.00, "transactionType": "DEPOSIT", "description": "Retentativa"}
+                """;
+        assertEquals("Idempotency-Key já utilizada com outra requisição", falha(post("/api/transactions")
+                .header("Idempotency-Key", "deposito-retentativa-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(outroDeposito)).getMessage());
+
+        // 4. Transferências também aceitam a chave
+        String transferencia = """
+                {"sourceAccountId": 2, "destinationAccountId": 1, "amount": 5.00}
+                """;
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/transfers")
+                            .header("Idempotency-Key", "transferencia-retentativa-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(transferencia))
+                    .andExpect(status().isCreated());
+        }
+        assertEquals(0, saldoAntes.add(new BigDecimal("35.00")).compareTo(saldo(2L)));
+    }
+
+    private BigDecimal saldo(Long accountId) throws Exception {
+        String conta = mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return new BigDecimal(objectMapper.readTree(conta).get("balance").asText());
+    }
+
+    // A API não tem handler de erros: a exceção do serviço chega ao MockMvc como causa da ServletException
+    private RuntimeException falha(RequestBuilder requisicao) {
+        ServletException erro = assertThrows(ServletException.class, () -> mockMvc.perform(requisicao));
+        return assertInstanceOf(RuntimeException.class, erro.getCause());
+    }
 }
@@ -2,15 +2,20 @@ package com.fintech.controller;
 
 import com.fintech.dto.UserDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -81,4 +86,80 @@ class UserControllerIntegrationTest {
         mockMvc.perform(delete("/api/users/{id}", userId))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void testIfMatchNaAtualizacaoDeUsuario() throws Exception {
+        UserDTO novoUsuario = new UserDTO();
+        novoUsuario.setName("Usuario Versionado");
+        novoUsuario.setEmail("versionado@email.com");
+        novoUsuario.setCpf("31415926535");
+        String response = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novoUsuario)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long userId = objectMapper.readValue(response, UserDTO.class).getId();
+
+        String etag = mockMvc.perform(get("/api/users/{id}", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/users/{id}", userId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // 1. Primeira atualização com a versão lida passa; a segunda, com a mesma versão, falha
+        novoUsuario.setName("Usuario Versionado Um");
+        mockMvc.perform(put("/api/users/{id}", userId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novoUsuario)))
+                .andExpect(status().isOk());
+        novoUsuario.setName("Usuario Versionado Dois");
+        mockMvc.perform(put("/api/users/{id}", userId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novoUsuario)))
+                .andExpect(status().isPreconditionFailed());
+
+        // 2. A leitura condicional com a versão antiga devolve o nome atualizado
+        mockMvc.perform(get("/api/users/{id}", userId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Usuario Versionado Um"));
+    }
+
+    @Test
+    void testAnaliseDeGastos() throws Exception {
+        String hoje = java.time.LocalDate.now().toString();
+
+        mockMvc.perform(get("/api/users/{id}/analytics", 1L)
+                        .param("from", hoje)
+                        .param("to", hoje)
+                        .param("granularity", "month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.granularity").value("month"))
+                .andExpect(jsonPath("$.buckets").isArray());
+
+        assertEquals("Granularidade inválida: year (use day, week ou month)", falha(get("/api/users/{id}/analytics", 1L)
+                .param("from", hoje)
+                .param("to", hoje)
+                .param("granularity", "year")).getMessage());
+    }
+
+    @Test
+    void testResumoDaCarteira() throws Exception {
+        mockMvc.perform(get("/api/users/{id}/summary", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.totalBalance").exists())
+                .andExpect(jsonPath("$.balanceByAccountType.CHECKING").exists())
+                .andExpect(jsonPath("$.accountCount").exists());
+    }
+
+    // A API não tem handler de erros: a exceção do serviço chega ao MockMvc como causa da ServletException
+    private RuntimeException falha(RequestBuilder requisicao) {
+        ServletException erro = assertThrows(ServletException.class, () -> mockMvc.perform(requisicao));
+        return assertInstanceOf(RuntimeException.class, erro.getCause());
+    }
 }
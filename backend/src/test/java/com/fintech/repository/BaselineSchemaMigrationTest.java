@@ -0,0 +1,95 @@
+package com.fintech.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Migrações do Flyway sobre um banco criado pelo antigo ddl-auto: update (entidades da primeira versão, ids por
+// identidade), num esquema próprio do PostgreSQL de FINTECH_TEST_POSTGRES_URL, por exemplo:
+// FINTECH_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/fintech_test mvn test -Dtest=BaselineSchemaMigrationTest
+@EnabledIfEnvironmentVariable(named = "FINTECH_TEST_POSTGRES_URL", matches = ".+")
+class BaselineSchemaMigrationTest {
+
+    private static final String SCHEMA = "baseline_upgrade";
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(System.getenv("FINTECH_TEST_POSTGRES_URL"),
+                System.getenv().getOrDefault("FINTECH_TEST_POSTGRES_USER", "fintech_user"),
+                System.getenv().getOrDefault("FINTECH_TEST_POSTGRES_PASSWORD", "fintech_pass"));
+        dataSource.setSchema(SCHEMA);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop schema if exists " + SCHEMA + " cascade");
+        jdbcTemplate.execute("create schema " + SCHEMA);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop schema if exists " + SCHEMA + " cascade");
+    }
+
+    @Test
+    void testMigracaoAPartirDoEsquemaDoDdlAuto() {
+        // 1. Esquema e dados como o ddl-auto: update deixava, com um buraco nos ids das transações
+        jdbcTemplate.execute("""
+                create table users (created_at timestamp(6), id bigint generated by default as identity,
+                    cpf varchar(255) not null unique, email varchar(255) not null unique,
+                    name varchar(255) not null, primary key (id));
+                create table accounts (balance numeric(19,2) not null, created_at timestamp(6),
+                    id bigint generated by default as identity, user_id bigint not null,
+                    account_number varchar(255) not null unique, account_type varchar(255) not null
+                        check (account_type in ('CHECKING','SAVINGS','INVESTMENT')), primary key (id));
+                create table transactions (amount numeric(19,2) not null, account_id bigint not null,
+                    id bigint generated by default as identity, transaction_date timestamp(6),
+                    description varchar(500), transaction_type varchar(255) not null
+                        check (transaction_type in ('DEPOSIT','WITHDRAWAL','TRANSFER','PAYMENT')), primary key (id));
+                alter table if exists accounts add constraint fk_baseline_accounts_user
+                    foreign key (user_id) references users;
+                alter table if exists transactions add constraint fk_baseline_transactions_account
+                    foreign key (account_id) references accounts;
+                insert into users (name, email, cpf, created_at) values ('Usuario Antigo', 'antigo@email.com',
+                    '12345678901', localtimestamp);
+                insert into accounts (account_number, user_id, balance, account_type, created_at)
+                    values ('00012345', 1, 70.00, 'CHECKING', localtimestamp);
+                insert into transactions (id, account_id, amount, transaction_type, description, transaction_date)
+                    values (1, 1, 100.00, 'DEPOSIT', 'Antigo 1', localtimestamp - interval '40 days'),
+                           (2, 1, 50.00, 'WITHDRAWAL', 'Antigo 2', localtimestamp - interval '1 day'),
+                           (7, 1, 20.00, 'DEPOSIT', 'Antigo 7', localtimestamp);
+                """);
+
+        // 2. Mesma configuração do perfil prod: baseline na versão 0 e todas as migrações
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .locations("classpath:db/migration/postgresql")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        // 3. Transações copiadas para a tabela particionada, com as colunas novas e a versão das contas
+        assertEquals(List.of(1L, 2L, 7L), jdbcTemplate.queryForList(
+                "select id from transactions order by id", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transactions " +
+                "where counterparty_account_id is not null or reversed_transaction_id is not null", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from accounts where id = 1", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from users where id = 1", Long.class));
+
+        // 4. O primeiro bloco do Hibernate (allocationSize 50: ids de nextval - 49 a nextval) começa depois do
+        //    maior id antigo
+        Long nextValue = jdbcTemplate.queryForObject("select nextval('transactions_seq')", Long.class);
+        assertTrue(nextValue - 49 > 7, "transactions_seq reutiliza ids: " + nextValue);
+    }
+}
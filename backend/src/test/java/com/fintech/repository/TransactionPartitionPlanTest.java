@@ -0,0 +1,66 @@
+package com.fintech.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Esquema das migrações do Flyway num PostgreSQL de verdade (perfil prod), por exemplo:
+// FINTECH_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/fintech_test mvn test -Dtest=TransactionPartitionPlanTest
+@EnabledIfEnvironmentVariable(named = "FINTECH_TEST_POSTGRES_URL", matches = ".+")
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${FINTECH_TEST_POSTGRES_URL}",
+        "spring.datasource.username=${FINTECH_TEST_POSTGRES_USER:fintech_user}",
+        "spring.datasource.password=${FINTECH_TEST_POSTGRES_PASSWORD:fintech_pass}"
+})
+class TransactionPartitionPlanTest {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'transactions_y'yyyy'm'MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testConsultaPorContaEPeriodoPodaParticoesEUsaIndice() {
+        // Mês corrente e o seguinte já existem (migração V2 e TransactionPartitionMaintainer)
+        LocalDate mes = LocalDate.now().withDayOfMonth(1);
+        String particao = mes.format(PARTITION_NAME);
+        String proxima = mes.plusMonths(1).format(PARTITION_NAME);
+
+        String plano = explain("select t.* from transactions t where t.account_id = 1 " +
+                "and t.transaction_date between timestamp '" + mes.atStartOfDay().plusDays(2) + "' " +
+                "and timestamp '" + mes.atStartOfDay().plusDays(9) + "'");
+
+        assertTrue(plano.contains(particao), plano);
+        assertFalse(plano.contains(proxima), plano);
+        assertFalse(plano.contains("transactions_default"), plano);
+        assertTrue(plano.contains("Index") && plano.contains("account_id"), plano);
+    }
+
+    @Test
+    void testConsultaPorContaUsaIndiceEmCadaParticao() {
+        String plano = explain("select t.* from transactions t where t.account_id = 1");
+        assertFalse(plano.contains("Seq Scan"), plano);
+    }
+
+    // Tabela pequena num banco de teste: sem enable_seqscan = off o planejador prefere varrer as partições
+    private String explain(String sql) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("set local enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.fintech.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Plano no H2 (esquema do ddl-auto): as consultas por conta e período usam o índice composto.
+// O particionamento só existe no PostgreSQL e é coberto por TransactionPartitionPlanTest
+@SpringBootTest
+class TransactionQueryPlanTest {
+
+    private static final String INDEX = "IDX_TRANSACTIONS_ACCOUNT_DATE_ID";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testConsultaPorContaEPeriodoUsaIndiceComposto() {
+        // findByAccountAndTransactionDateBetween: igualdade na conta e faixa na data, ambas no índice
+        String plano = explain("select t.* from transactions t where t.account_id = 1 " +
+                "and t.transaction_date between timestamp '2024-01-10 00:00:00' and timestamp '2024-01-20 00:00:00'");
+        assertTrue(plano.contains(INDEX), plano);
+        assertTrue(plano.contains("TRANSACTION_DATE >="), plano);
+    }
+
+    @Test
+    void testConsultaPorContaUsaIndice() {
+        // findByAccount: o H2 pode escolher o índice da FK (só account_id); o que importa é não varrer a tabela
+        String plano = explain("select t.* from transactions t where t.account_id = 1");
+        assertFalse(plano.contains("TABLESCAN"), plano);
+        assertTrue(plano.contains("_INDEX") || plano.contains(INDEX), plano);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class).toUpperCase();
+    }
+}
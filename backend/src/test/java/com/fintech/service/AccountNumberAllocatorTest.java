@@ -0,0 +1,103 @@
+package com.fintech.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AccountNumberAllocatorTest {
+
+    private static final int CONTAS = 100_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testDigitoVerificador() {
+        assertEquals("0000000018", AccountNumberAllocator.format(1));
+        assertTrue(AccountNumberAllocator.isValid("0000000018"));
+        assertFalse(AccountNumberAllocator.isValid("0000000019"));
+        // Transposição de dígitos vizinhos é detectada (o Luhn só não pega a troca de 0 com 9, ausente aqui)
+        String numero = AccountNumberAllocator.format(123_456_789);
+        assertTrue(AccountNumberAllocator.isValid(numero));
+        for (int i = 0; i + 1 < AccountNumberAllocator.BASE_DIGITS; i++) {
+            char[] digitos = numero.toCharArray();
+            char vizinho = digitos[i + 1];
+            digitos[i + 1] = digitos[i];
+            digitos[i] = vizinho;
+            assertFalse(AccountNumberAllocator.isValid(new String(digitos)), new String(digitos));
+        }
+    }
+
+    @Test
+    void testCemMilContasSemColisaoEntreInstancias() throws Exception {
+        // Três alocadores sobre a mesma sequence simulam três instâncias da aplicação
+        List<AccountNumberAllocator> instancias = List.of(
+                accountNumberAllocator,
+                new AccountNumberAllocator(jdbcTemplate, entityManagerFactory),
+                new AccountNumberAllocator(jdbcTemplate, entityManagerFactory));
+        Set<String> numeros = ConcurrentHashMap.newKeySet(CONTAS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            AccountNumberAllocator allocator = instancias.get(t % instancias.size());
+            int quantidade = CONTAS / THREADS + (t < CONTAS % THREADS ? 1 : 0);
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < quantidade; i++) {
+                    String numero = allocator.next();
+                    assertTrue(AccountNumberAllocator.isValid(numero), numero);
+                    assertTrue(numeros.add(numero), "Número repetido: " + numero);
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        assertEquals(CONTAS, numeros.size());
+
+        // A constraint unique do banco confirma: as 100 mil contas entram sem violação
+        Long ultimoId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from accounts", Long.class);
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> linhas = new ArrayList<>(CONTAS);
+        for (String numero : numeros) {
+            linhas.add(new Object[]{numero, agora});
+        }
+        jdbcTemplate.batchUpdate("insert into accounts (account_number, user_id, balance, account_type, created_at, version) " +
+                "values (?, 1, 0, 'CHECKING', ?, 0)", linhas);
+        assertEquals(CONTAS, jdbcTemplate.queryForObject(
+                "select count(*) from accounts where id > ?", Long.class, ultimoId));
+
+        jdbcTemplate.update("delete from accounts where id > ?", ultimoId);
+    }
+}
@@ -0,0 +1,112 @@
+package com.fintech.service;
+
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.AnalyticsBucketDTO;
+import com.fintech.dto.AnalyticsDTO;
+import com.fintech.dto.UserDTO;
+import com.fintech.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class AnalyticsServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 1, 1);
+    private static final int DIAS = 60;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testAgregacaoNoBancoEParalelaConferem() {
+        // 1. Usuário com duas contas e 24 mil lançamentos espalhados por 60 dias (mais de um bloco)
+        UserDTO usuario = new UserDTO();
+        usuario.setName("Usuario Analytics");
+        usuario.setEmail("analytics@email.com");
+        usuario.setCpf("55566677788");
+        Long userId = userService.create(usuario).getId();
+        Long contaA = novaConta(userId);
+        Long contaB = novaConta(userId);
+
+        List<Object[]> linhas = new ArrayList<>();
+        Transaction.TransactionType[] tipos = {Transaction.TransactionType.DEPOSIT,
+                Transaction.TransactionType.WITHDRAWAL, Transaction.TransactionType.PAYMENT};
+        for (int i = 0; i < 24_000; i++) {
+            LocalDateTime data = INICIO.plusDays(i % DIAS).atTime(i % 24, 0);
+            linhas.add(new Object[]{i % 2 == 0 ? contaA : contaB, new BigDecimal("1.50"),
+                    tipos[i % tipos.length].name(), "Histórico", Timestamp.valueOf(data)});
+        }
+        jdbcTemplate.batchUpdate("insert into transactions " +
+                "(id, account_id, amount, transaction_type, description, transaction_date) " +
+                "values (next value for transactions_seq, ?, ?, ?, ?, ?)", linhas);
+
+        // 2. Os dois caminhos produzem os mesmos baldes em todas as granularidades
+        LocalDateTime start = INICIO.atStartOfDay();
+        LocalDateTime end = INICIO.plusDays(DIAS).atStartOfDay();
+        for (AnalyticsService.Granularity granularidade : AnalyticsService.Granularity.values()) {
+            Map<AnalyticsService.BucketKey, AnalyticsService.Totals> banco =
+                    analyticsService.aggregateInDatabase(userId, start, end, granularidade);
+            Map<AnalyticsService.BucketKey, AnalyticsService.Totals> paralela = transactionTemplate.execute(status ->
+                    analyticsService.aggregateInParallel(userId, start, end, granularidade));
+            assertEquals(banco.keySet(), paralela.keySet());
+            banco.forEach((chave, totais) -> {
+                assertEquals(0, totais.total().compareTo(paralela.get(chave).total()));
+                assertEquals(totais.count(), paralela.get(chave).count());
+            });
+        }
+
+        // 3. Por mês: janeiro tem 31 dos 60 dias, 400 lançamentos por dia divididos entre 3 tipos
+        AnalyticsDTO mensal = analyticsService.analytics(userId, INICIO, INICIO.plusDays(DIAS - 1), "month");
+        assertEquals(6, mensal.getBuckets().size());
+        long totalJaneiro = mensal.getBuckets().stream()
+                .filter(balde -> balde.getPeriodStart().equals(INICIO))
+                .mapToLong(AnalyticsBucketDTO::getCount)
+                .sum();
+        assertEquals(31 * 400, totalJaneiro);
+        AnalyticsBucketDTO primeiro = mensal.getBuckets().get(0);
+        assertEquals(0, new BigDecimal("1.50").multiply(BigDecimal.valueOf(primeiro.getCount()))
+                .compareTo(primeiro.getTotal()));
+
+        // 4. Semanas começam na segunda-feira: 01/01/2024 é segunda
+        AnalyticsDTO semanal = analyticsService.analytics(userId, INICIO, INICIO.plusDays(6), "WEEK");
+        assertEquals(3, semanal.getBuckets().size());
+        assertEquals(7 * 400, semanal.getBuckets().stream().mapToLong(AnalyticsBucketDTO::getCount).sum());
+
+        assertThrows(RuntimeException.class, () -> analyticsService.analytics(userId, INICIO, INICIO, "year"));
+        assertThrows(RuntimeException.class, () -> analyticsService.analytics(userId, INICIO.plusDays(1), INICIO, "day"));
+        assertThrows(RuntimeException.class, () -> analyticsService.analytics(999_999L, INICIO, INICIO, "day"));
+    }
+
+    private Long novaConta(Long userId) {
+        AccountDTO account = new AccountDTO();
+        account.setUserId(userId);
+        account.setBalance(BigDecimal.ZERO);
+        return accountService.create(account).getId();
+    }
+}
@@ -0,0 +1,207 @@
+package com.fintech.service;
+
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Account;
+import com.fintech.model.Transaction;
+import com.fintech.repository.AccountRepository;
+import com.fintech.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BalanceUpdaterConcurrencyTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionMetrics metrics;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private BalanceLedger balanceLedger;
+
+    @Test
+    void testDepositosESaquesConcorrentesNaoPerdemAtualizacoes() throws Exception {
+        Long accountId = novaConta();
+
+        // 1. 100 depósitos concorrentes de 1,00: nenhum pode ser perdido
+        AtomicInteger falhas = new AtomicInteger();
+        executarConcorrente(8, 100, i -> {
+            transactionService.create(transacao(accountId, "1.00", Transaction.TransactionType.DEPOSIT));
+            return true;
+        }, falhas);
+        assertEquals(0, falhas.get());
+        assertEquals(0, new BigDecimal("100.00").compareTo(saldo(accountId)));
+
+        // 2. 32 saques concorrentes de 10,00 sobre 100,00: exatamente 10 passam e o saldo nunca fica negativo
+        AtomicInteger recusados = new AtomicInteger();
+        int aprovados = executarConcorrente(32, 32, i -> {
+            try {
+                transactionService.create(transacao(accountId, "10.00", Transaction.TransactionType.WITHDRAWAL));
+                return true;
+            } catch (InsufficientFundsException e) {
+                recusados.incrementAndGet();
+                return false;
+            }
+        }, falhas);
+        assertEquals(0, falhas.get());
+        assertEquals(10, aprovados);
+        assertEquals(22, recusados.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(saldo(accountId)));
+    }
+
+    @Test
+    void testEstrategiasNaoPerdemAtualizacoes() throws Exception {
+        // LEDGER não grava em accounts: o saldo depende dos lançamentos, que este teste não insere
+        for (BalanceUpdater.Strategy strategy : EnumSet.complementOf(EnumSet.of(BalanceUpdater.Strategy.LEDGER))) {
+            assertEquals(0, contaQuente(strategy, 8, 64).falhas(), strategy + " falhou operações");
+        }
+    }
+
+    // Comparativo de vazão, fora do mvn test: mvn -P stress test -Dtest=BalanceUpdaterConcurrencyTest
+    @Test
+    @Tag("stress")
+    void testComparativoDeThroughputPorEstrategia() throws Exception {
+        StringBuilder relatorio = new StringBuilder("\nEstratégia   Threads   ops/s    falhas\n");
+        for (BalanceUpdater.Strategy strategy : EnumSet.complementOf(EnumSet.of(BalanceUpdater.Strategy.LEDGER))) {
+            for (int threads : new int[]{1, 8, 64}) {
+                Resultado resultado = contaQuente(strategy, threads, 640);
+                relatorio.append(String.format("%-12s %7d %8.0f %8d%n", strategy, threads,
+                        resultado.operacoesPorSegundo(), resultado.falhas()));
+            }
+        }
+        System.out.println(relatorio);
+    }
+
+    // Conta quente: créditos de 2,00 intercalados com débitos de 3,00 que podem ser recusados. O saldo final
+    // tem que bater com o que foi aceito e nunca ficar negativo
+    private Resultado contaQuente(BalanceUpdater.Strategy strategy, int threads, int operacoes) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        BalanceUpdater balanceUpdater = new BalanceUpdater(
+                accountRepository, eventPublisher, metrics, balanceLedger, strategy, 64);
+        Long accountId = novaConta();
+        AtomicInteger creditos = new AtomicInteger();
+        AtomicInteger debitos = new AtomicInteger();
+        AtomicInteger falhas = new AtomicInteger();
+
+        long inicio = System.nanoTime();
+        executarConcorrente(threads, operacoes, i -> transactionTemplate.execute(status -> {
+            if (i % 2 == 0) {
+                balanceUpdater.credit(accountId, new BigDecimal("2.00"), LocalDateTime.now());
+                creditos.incrementAndGet();
+            } else {
+                try {
+                    balanceUpdater.debit(accountId, new BigDecimal("3.00"), LocalDateTime.now());
+                    debitos.incrementAndGet();
+                } catch (InsufficientFundsException e) {
+                    status.setRollbackOnly();
+                }
+            }
+            return true;
+        }), falhas);
+        long duracao = System.nanoTime() - inicio;
+
+        BigDecimal esperado = new BigDecimal("2.00").multiply(BigDecimal.valueOf(creditos.get()))
+                .subtract(new BigDecimal("3.00").multiply(BigDecimal.valueOf(debitos.get())));
+        BigDecimal atual = saldo(accountId);
+        assertEquals(0, esperado.compareTo(atual), strategy + " com " + threads + " threads perdeu atualizações");
+        assertTrue(atual.signum() >= 0);
+        return new Resultado(operacoes / (duracao / 1_000_000_000.0), falhas.get());
+    }
+
+    private int executarConcorrente(int threads, int operacoes, Operacao operacao, AtomicInteger falhas)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger proxima = new AtomicInteger();
+        List<Future<Integer>> resultados = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                int sucessos = 0;
+                for (int i = proxima.getAndIncrement(); i < operacoes; i = proxima.getAndIncrement()) {
+                    try {
+                        if (operacao.executar(i)) {
+                            sucessos++;
+                        }
+                    } catch (RuntimeException e) {
+                        falhas.incrementAndGet();
+                    }
+                }
+                return sucessos;
+            }));
+        }
+
+        largada.countDown();
+        int total = 0;
+        for (Future<Integer> resultado : resultados) {
+            total += resultado.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return total;
+    }
+
+    private Long novaConta() {
+        Account account = new Account();
+        account.setAccountNumber(accountNumberAllocator.next());
+        account.setUser(userRepository.findById(1L).orElseThrow());
+        account.setBalance(BigDecimal.ZERO);
+        return accountRepository.save(account).getId();
+    }
+
+    private BigDecimal saldo(Long accountId) {
+        return accountRepository.findBalanceById(accountId).orElseThrow();
+    }
+
+    private TransactionDTO transacao(Long accountId, String valor, Transaction.TransactionType tipo) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAccountId(accountId);
+        transactionDTO.setAmount(new BigDecimal(valor));
+        transactionDTO.setTransactionType(tipo);
+        return transactionDTO;
+    }
+
+    private record Resultado(double operacoesPorSegundo, int falhas) {
+    }
+
+    @FunctionalInterface
+    private interface Operacao {
+        boolean executar(int indice);
+    }
+}
@@ -0,0 +1,154 @@
+package com.fintech.service;
+
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.model.Transaction;
+import com.fintech.repository.AccountRepository;
+import com.fintech.repository.TransactionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Banco próprio: o contexto com group commit não pode recriar as tabelas do contexto compartilhado
+@SpringBootTest(properties = {
+        "fintech.deposits.coalescing.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:coalescingdb"
+})
+class DepositCoalescerTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testDepositosConcorrentesAgrupadosSemPerda() throws Exception {
+        depositosAgrupados(200);
+    }
+
+    // Comparativo de vazão com a carga completa, fora do mvn test: mvn -P stress test -Dtest=DepositCoalescerTest
+    @Test
+    @Tag("stress")
+    void testVazaoDoGroupCommit() throws Exception {
+        int depositos = 2_000;
+        Agrupamento agrupada = depositosAgrupados(depositos);
+
+        // Mesma carga dentro de uma transação do chamador: sem agrupamento, um commit por depósito
+        Long individualId = novaConta();
+        double individual = depositosPorSegundo(64, depositos, i ->
+                transactionTemplate.execute(status -> transactionService.create(deposito(individualId))));
+        assertEquals(0, BigDecimal.valueOf(depositos).compareTo(accountRepository.findBalanceById(individualId).orElseThrow()));
+
+        System.out.printf("%nGroup commit: %.0f depósitos/s em %d commits (média %.1f por lote); " +
+                        "individual: %.0f depósitos/s%n",
+                agrupada.depositosPorSegundo(), agrupada.commits(), (double) depositos / agrupada.commits(), individual);
+    }
+
+    @Test
+    void testFalhaDoLoteChegaAoChamador() {
+        TransactionDTO contaInexistente = new TransactionDTO();
+        contaInexistente.setAccountId(999_999L);
+        contaInexistente.setAmount(new BigDecimal("1.00"));
+        contaInexistente.setTransactionType(Transaction.TransactionType.DEPOSIT);
+        assertThrows(RuntimeException.class, () -> transactionService.create(contaInexistente));
+    }
+
+    // Conta quente com group commit: cada requisição recebe a própria transação já gravada
+    private Agrupamento depositosAgrupados(int depositos) throws Exception {
+        DistributionSummary lotes = meterRegistry.get("fintech.deposits.coalesced.batch.size").summary();
+        Long agrupadaId = novaConta();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        long lotesAntes = lotes.count();
+        double porSegundo = depositosPorSegundo(64, depositos, i -> {
+            TransactionDTO criada = transactionService.create(deposito(agrupadaId));
+            ids.add(criada.getId());
+            assertEquals(agrupadaId, criada.getAccountId());
+            return criada;
+        });
+        assertEquals(depositos, ids.size());
+        assertEquals(0, BigDecimal.valueOf(depositos).compareTo(accountRepository.findBalanceById(agrupadaId).orElseThrow()));
+        assertEquals(depositos, transactionRepository.findByAccount(accountRepository.getReferenceById(agrupadaId)).size());
+        long commits = lotes.count() - lotesAntes;
+        assertTrue(commits < depositos, "Nenhum depósito foi agrupado");
+        return new Agrupamento(porSegundo, commits);
+    }
+
+    private double depositosPorSegundo(int threads, int operacoes, Function<Integer, TransactionDTO> operacao)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger proxima = new AtomicInteger();
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                for (int i = proxima.getAndIncrement(); i < operacoes; i = proxima.getAndIncrement()) {
+                    operacao.apply(i);
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(2, TimeUnit.MINUTES);
+        }
+        long duracao = System.nanoTime() - inicio;
+        executor.shutdown();
+        return operacoes / (duracao / 1_000_000_000.0);
+    }
+
+    private Long novaConta() {
+        AccountDTO account = new AccountDTO();
+        account.setUserId(1L);
+        account.setBalance(BigDecimal.ZERO);
+        return accountService.create(account).getId();
+    }
+
+    private record Agrupamento(double depositosPorSegundo, long commits) {
+    }
+
+    private TransactionDTO deposito(Long accountId) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAccountId(accountId);
+        transactionDTO.setAmount(new BigDecimal("1.00"));
+        transactionDTO.setTransactionType(Transaction.TransactionType.DEPOSIT);
+        transactionDTO.setDescription("Depósito agrupado");
+        return transactionDTO;
+    }
+}
@@ -0,0 +1,254 @@
+package com.fintech.service;
+
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.PortfolioSummaryDTO;
+import com.fintech.dto.StatementDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.dto.TransferDTO;
+import com.fintech.dto.UserDTO;
+import com.fintech.model.Account;
+import com.fintech.model.Transaction;
+import com.fintech.repository.AccountRepository;
+import com.fintech.repository.BalanceCheckpointRepository;
+import com.fintech.repository.PortfolioSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Banco próprio: o contexto LEDGER não pode recriar as tabelas do contexto compartilhado pelos outros testes
+@SpringBootTest(properties = {
+        "fintech.balance.update-strategy=LEDGER",
+        "spring.datasource.url=jdbc:h2:mem:ledgerdb"
+})
+class LedgerModeTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private BalanceLedger balanceLedger;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PortfolioSummaryService portfolioSummaryService;
+
+    @Autowired
+    private PortfolioSummaryRepository portfolioSummaryRepository;
+
+    @Test
+    void testLancamentosConcorrentesSemEscritaNaConta() throws Exception {
+        Long accountId = novaConta("200.00");
+        Long versaoAntes = accountRepository.findById(accountId).orElseThrow().getVersion();
+
+        // 1. 200 depósitos concorrentes de 1,00 são apenas INSERTs
+        AtomicInteger falhas = new AtomicInteger();
+        executarConcorrente(8, 200, i -> {
+            transactionService.create(transacao(accountId, "1.00", Transaction.TransactionType.DEPOSIT));
+            return true;
+        }, falhas);
+        assertEquals(0, falhas.get());
+        assertEquals(0, new BigDecimal("400.00").compareTo(saldo(accountId)));
+
+        // 2. 64 saques concorrentes de 10,00 sobre 400,00: exatamente 40 passam
+        int aprovados = executarConcorrente(16, 64, i -> {
+            try {
+                transactionService.create(transacao(accountId, "10.00", Transaction.TransactionType.WITHDRAWAL));
+                return true;
+            } catch (InsufficientFundsException e) {
+                return false;
+            }
+        }, falhas);
+        assertEquals(0, falhas.get());
+        assertEquals(40, aprovados);
+        assertEquals(0, BigDecimal.ZERO.compareTo(saldo(accountId)));
+
+        // 3. A linha da conta nunca foi alterada: saldo de abertura e versão originais
+        assertEquals(0, new BigDecimal("200.00").compareTo(accountRepository.findBalanceById(accountId).orElseThrow()));
+        assertEquals(versaoAntes, accountRepository.findById(accountId).orElseThrow().getVersion());
+
+        // 4. Transferência lê e valida o saldo do livro-razão
+        Long destinoId = novaConta("0.00");
+        assertThrows(InsufficientFundsException.class, () ->
+                transactionService.transfer(new TransferDTO(accountId, destinoId, new BigDecimal("1.00"), null)));
+        transactionService.create(transacao(accountId, "5.00", Transaction.TransactionType.DEPOSIT));
+        transactionService.transfer(new TransferDTO(accountId, destinoId, new BigDecimal("5.00"), null));
+        assertEquals(0, BigDecimal.ZERO.compareTo(saldo(accountId)));
+        assertEquals(0, new BigDecimal("5.00").compareTo(saldo(destinoId)));
+    }
+
+    @Test
+    void testCheckpointEEstornos() {
+        Long accountId = novaConta("100.00");
+        String tagInicial = accountService.changeTag(accountId);
+        TransactionDTO deposito = transactionService.create(
+                transacao(accountId, "50.00", Transaction.TransactionType.DEPOSIT));
+        // Crédito não altera a linha da conta, mas muda o ETag
+        String tagAposDeposito = accountService.changeTag(accountId);
+        assertNotEquals(tagInicial, tagAposDeposito);
+
+        // 1. Checkpoint grava o saldo acumulado e não muda o saldo lido
+        assertTrue(balanceLedger.checkpoint(LocalDateTime.now()) >= 1);
+        assertTrue(balanceCheckpointRepository.findAll().stream()
+                .anyMatch(checkpoint -> checkpoint.getAccountId().equals(accountId)
+                        && checkpoint.getBalance().compareTo(new BigDecimal("150.00")) == 0));
+        assertEquals(0, new BigDecimal("150.00").compareTo(saldo(accountId)));
+        assertNotEquals(tagAposDeposito, accountService.changeTag(accountId));
+
+        // 2. Lançamentos posteriores ao checkpoint somam sobre ele
+        TransactionDTO saque = transactionService.create(
+                transacao(accountId, "30.00", Transaction.TransactionType.WITHDRAWAL));
+        assertEquals(0, new BigDecimal("120.00").compareTo(saldo(accountId)));
+
+        // 3. Estorno é um lançamento compensatório; o original continua no histórico
+        TransactionDTO estorno = transactionService.reverse(deposito.getId());
+        assertEquals(Transaction.TransactionType.REVERSAL_DEBIT, estorno.getTransactionType());
+        assertEquals(0, new BigDecimal("70.00").compareTo(saldo(accountId)));
+        assertEquals(deposito.getId(), transactionService.findById(deposito.getId()).getId());
+        assertThrows(RuntimeException.class, () -> transactionService.reverse(deposito.getId()));
+        assertThrows(RuntimeException.class, () -> transactionService.reverse(estorno.getId()));
+
+        // 4. Excluir no modo livro-razão estorna em vez de apagar
+        transactionService.delete(saque.getId());
+        assertEquals(0, new BigDecimal("100.00").compareTo(saldo(accountId)));
+        assertEquals(saque.getId(), transactionService.findById(saque.getId()).getId());
+
+        // 5. Extrato do dia fecha com o saldo do livro-razão
+        StatementDTO extrato = statementService.statement(accountId, LocalDate.now(), LocalDate.now());
+        assertEquals(0, new BigDecimal("100.00").compareTo(extrato.getOpeningBalance()));
+        assertEquals(0, saldo(accountId).compareTo(extrato.getClosingBalance()));
+        assertEquals(4, extrato.getTransactions().size());
+    }
+
+    @Test
+    void testResumoDaCarteiraAtualizadoNoCheckpoint() {
+        UserDTO usuario = new UserDTO();
+        usuario.setName("Usuario Livro Razao");
+        usuario.setEmail("livro.razao@email.com");
+        usuario.setCpf("16180339887");
+        Long userId = userService.create(usuario).getId();
+        AccountDTO conta = new AccountDTO();
+        conta.setUserId(userId);
+        conta.setBalance(new BigDecimal("100.00"));
+        Long accountId = accountService.create(conta).getId();
+
+        // 1. Lançamentos não tocam a linha do usuário no resumo, mas entram na leitura
+        transactionService.create(transacao(accountId, "25.00", Transaction.TransactionType.DEPOSIT));
+        transactionService.create(transacao(accountId, "5.00", Transaction.TransactionType.WITHDRAWAL));
+        assertEquals(0, new BigDecimal("100.00").compareTo(linhaDoResumo(userId, Account.AccountType.CHECKING)));
+        PortfolioSummaryDTO resumo = portfolioSummaryService.summary(userId);
+        assertEquals(0, new BigDecimal("120.00").compareTo(resumo.getTotalBalance()));
+        assertNotNull(resumo.getLastTransactionAt());
+
+        // 2. O checkpoint leva os lançamentos para a linha sem mudar o resumo lido
+        assertTrue(balanceLedger.checkpoint(LocalDateTime.now()) >= 1);
+        assertEquals(0, new BigDecimal("120.00").compareTo(linhaDoResumo(userId, Account.AccountType.CHECKING)));
+        assertEquals(0, new BigDecimal("120.00").compareTo(portfolioSummaryService.summary(userId).getTotalBalance()));
+
+        // 3. Mudança de tipo com lançamento pendente: as duas partes ficam no tipo novo
+        transactionService.create(transacao(accountId, "30.00", Transaction.TransactionType.DEPOSIT));
+        AccountDTO investimento = new AccountDTO();
+        investimento.setAccountType(Account.AccountType.INVESTMENT);
+        accountService.update(accountId, investimento, null);
+        resumo = portfolioSummaryService.summary(userId);
+        assertEquals(0, new BigDecimal("150.00").compareTo(resumo.getTotalBalance()));
+        assertEquals(0, new BigDecimal("150.00").compareTo(
+                resumo.getBalanceByAccountType().get(Account.AccountType.INVESTMENT)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(resumo.getBalanceByAccountType().get(Account.AccountType.CHECKING)));
+    }
+
+    private BigDecimal linhaDoResumo(Long userId, Account.AccountType tipo) {
+        return portfolioSummaryRepository.findByUserId(userId).stream()
+                .filter(linha -> linha.getAccountType() == tipo)
+                .findFirst().orElseThrow()
+                .getBalance();
+    }
+
+    private int executarConcorrente(int threads, int operacoes, Operacao operacao, AtomicInteger falhas)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger proxima = new AtomicInteger();
+        List<Future<Integer>> resultados = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                int sucessos = 0;
+                for (int i = proxima.getAndIncrement(); i < operacoes; i = proxima.getAndIncrement()) {
+                    try {
+                        if (operacao.executar(i)) {
+                            sucessos++;
+                        }
+                    } catch (RuntimeException e) {
+                        falhas.incrementAndGet();
+                    }
+                }
+                return sucessos;
+            }));
+        }
+
+        largada.countDown();
+        int total = 0;
+        for (Future<Integer> resultado : resultados) {
+            total += resultado.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return total;
+    }
+
+    private Long novaConta(String saldoInicial) {
+        AccountDTO account = new AccountDTO();
+        account.setUserId(1L);
+        account.setBalance(new BigDecimal(saldoInicial));
+        return accountService.create(account).getId();
+    }
+
+    private BigDecimal saldo(Long accountId) {
+        return accountService.findById(accountId).getBalance();
+    }
+
+    private TransactionDTO transacao(Long accountId, String valor, Transaction.TransactionType tipo) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAccountId(accountId);
+        transactionDTO.setAmount(new BigDecimal(valor));
+        transactionDTO.setTransactionType(tipo);
+        return transactionDTO;
+    }
+
+    @FunctionalInterface
+    private interface Operacao {
+        boolean executar(int indice);
+    }
+}
@@ -0,0 +1,182 @@
+package com.fintech.service;
+
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.PortfolioSummaryDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.dto.TransferDTO;
+import com.fintech.dto.UserDTO;
+import com.fintech.model.Account;
+import com.fintech.model.Transaction;
+import com.fintech.model.User;
+import com.fintech.repository.AccountRepository;
+import com.fintech.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class PortfolioSummaryServiceTest {
+
+    @Autowired
+    private PortfolioSummaryService portfolioSummaryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void testResumoAcompanhaContasETransacoes() {
+        Long userId = novoUsuario("resumo@email.com", "12312312312");
+
+        // 1. Abertura de contas entra no resumo sem nenhuma transação
+        Long corrente = novaConta(userId, Account.AccountType.CHECKING, "100.00");
+        Long poupanca = novaConta(userId, Account.AccountType.SAVINGS, "50.00");
+        PortfolioSummaryDTO resumo = portfolioSummaryService.summary(userId);
+        assertEquals(0, new BigDecimal("150.00").compareTo(resumo.getTotalBalance()));
+        assertEquals(2L, resumo.getAccountCount());
+        assertNull(resumo.getLastTransactionAt());
+
+        // 2. Depósito, saque e transferência entre tipos
+        transactionService.create(transacao(corrente, "10.00", Transaction.TransactionType.DEPOSIT));
+        transactionService.create(transacao(poupanca, "5.00", Transaction.TransactionType.WITHDRAWAL));
+        transactionService.transfer(new TransferDTO(corrente, poupanca, new BigDecimal("20.00"), null));
+        resumo = portfolioSummaryService.summary(userId);
+        assertEquals(0, new BigDecimal("155.00").compareTo(resumo.getTotalBalance()));
+        assertEquals(0, new BigDecimal("90.00").compareTo(resumo.getBalanceByAccountType().get(Account.AccountType.CHECKING)));
+        assertEquals(0, new BigDecimal("65.00").compareTo(resumo.getBalanceByAccountType().get(Account.AccountType.SAVINGS)));
+        assertNotNull(resumo.getLastTransactionAt());
+
+        // 3. Mudança de tipo move o saldo; encerramento tira a conta do resumo
+        AccountDTO investimento = new AccountDTO();
+        investimento.setAccountType(Account.AccountType.INVESTMENT);
+        accountService.update(poupanca, investimento, null);
+        resumo = portfolioSummaryService.summary(userId);
+        assertEquals(0, BigDecimal.ZERO.compareTo(resumo.getBalanceByAccountType().get(Account.AccountType.SAVINGS)));
+        assertEquals(0, new BigDecimal("65.00").compareTo(resumo.getBalanceByAccountType().get(Account.AccountType.INVESTMENT)));
+
+        Long vazia = novaConta(userId, Account.AccountType.CHECKING, "0.00");
+        accountService.delete(vazia);
+        resumo = portfolioSummaryService.summary(userId);
+        assertEquals(2L, resumo.getAccountCount());
+        assertEquals(0, new BigDecimal("155.00").compareTo(resumo.getTotalBalance()));
+
+        assertThrows(RuntimeException.class, () -> portfolioSummaryService.summary(999_999L));
+    }
+
+    @Test
+    void testUsuarioSemResumoEReconstruido() {
+        // Usuário e contas gravados por fora dos serviços (como o DataLoader): o resumo nasce das contas
+        User usuario = new User();
+        usuario.setName("Usuario Legado");
+        usuario.setEmail("legado@email.com");
+        usuario.setCpf("78978978978");
+        usuario = userRepository.save(usuario);
+        for (Account.AccountType tipo : List.of(Account.AccountType.CHECKING, Account.AccountType.INVESTMENT)) {
+            Account account = new Account();
+            account.setAccountNumber(accountNumberAllocator.next());
+            account.setUser(usuario);
+            account.setAccountType(tipo);
+            account.setBalance(new BigDecimal("40.00"));
+            accountRepository.save(account);
+        }
+
+        PortfolioSummaryDTO resumo = portfolioSummaryService.summary(usuario.getId());
+        assertEquals(0, new BigDecimal("80.00").compareTo(resumo.getTotalBalance()));
+        assertEquals(2L, resumo.getAccountCount());
+        assertEquals(0, somaDasContas(usuario.getId()).compareTo(resumo.getTotalBalance()));
+    }
+
+    @Test
+    void testTransferenciasCruzadasEntreUsuariosSemDeadlock() throws Exception {
+        Long usuarioA = novoUsuario("cruzada.a@email.com", "32132132132");
+        Long usuarioB = novoUsuario("cruzada.b@email.com", "45645645645");
+        Long contaA1 = novaConta(usuarioA, Account.AccountType.CHECKING, "1000.00");
+        Long contaA2 = novaConta(usuarioA, Account.AccountType.SAVINGS, "1000.00");
+        Long contaB1 = novaConta(usuarioB, Account.AccountType.CHECKING, "1000.00");
+        Long contaB2 = novaConta(usuarioB, Account.AccountType.SAVINGS, "1000.00");
+
+        // A1→B1 e B2→A2 em paralelo: cada uma trava o resumo dos dois usuários
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            boolean ida = t % 2 == 0;
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < 50; i++) {
+                    transactionService.transfer(ida
+                            ? new TransferDTO(contaA1, contaB1, new BigDecimal("1.00"), null)
+                            : new TransferDTO(contaB2, contaA2, new BigDecimal("2.00"), null));
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(0, new BigDecimal("2200.00").compareTo(portfolioSummaryService.summary(usuarioA).getTotalBalance()));
+        assertEquals(0, new BigDecimal("1800.00").compareTo(portfolioSummaryService.summary(usuarioB).getTotalBalance()));
+        assertEquals(0, somaDasContas(usuarioA).compareTo(portfolioSummaryService.summary(usuarioA).getTotalBalance()));
+    }
+
+    private BigDecimal somaDasContas(Long userId) {
+        return accountService.findByUserId(userId).stream()
+                .map(AccountDTO::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private Long novoUsuario(String email, String cpf) {
+        UserDTO usuario = new UserDTO();
+        usuario.setName("Usuario Resumo");
+        usuario.setEmail(email);
+        usuario.setCpf(cpf);
+        return userService.create(usuario).getId();
+    }
+
+    private Long novaConta(Long userId, Account.AccountType tipo, String saldoInicial) {
+        AccountDTO account = new AccountDTO();
+        account.setUserId(userId);
+        account.setAccountType(tipo);
+        account.setBalance(new BigDecimal(saldoInicial));
+        return accountService.create(account).getId();
+    }
+
+    private TransactionDTO transacao(Long accountId, String valor, Transaction.TransactionType tipo) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAccountId(accountId);
+        transactionDTO.setAmount(new BigDecimal(valor));
+        transactionDTO.setTransactionType(tipo);
+        return transactionDTO;
+    }
+}
@@ -0,0 +1,75 @@
+package com.fintech.service;
+
+import com.fintech.dto.PortfolioSummaryDTO;
+import com.fintech.dto.StatementDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:syntheticdb")
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    private SyntheticDataGenerator syntheticDataGenerator;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private PortfolioSummaryService portfolioSummaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testMassaSinteticaConsistenteComOHistorico() {
+        // 1. Blocos pequenos em paralelo: 40 transações por conta dão 625 usuários por bloco, então 2 threads
+        //    só dividem o trabalho com mais usuários que isso
+        SyntheticDataGenerator.Result result = syntheticDataGenerator.generate(
+                new SyntheticDataGenerator.Plan(1300, 2, 40, Duration.ofDays(120), 2, 7));
+        assertEquals(1300, result.users());
+        assertEquals(2600, result.accounts());
+        assertEquals(104000, result.transactions());
+        assertTrue(result.snapshots() > 0);
+
+        // 2. Saldo de cada conta igual à soma do histórico, nunca negativo, e nenhuma transação antes da abertura
+        List<Map<String, Object>> divergent = jdbcTemplate.queryForList(
+                "select a.id from accounts a join users u on u.id = a.user_id " +
+                "where u.email like '%@exemplo.com.br' and a.balance <> (select sum(case when t.transaction_type = " +
+                "'DEPOSIT' then t.amount else -t.amount end) from transactions t where t.account_id = a.id)");
+        assertEquals(List.of(), divergent);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from accounts a join users u on u.id = a.user_id " +
+                "where u.email like '%@exemplo.com.br' and a.balance < 0", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transactions t join accounts a " +
+                "on a.id = t.account_id join users u on u.id = a.user_id " +
+                "where u.email like '%@exemplo.com.br' and t.transaction_date < a.created_at", Long.class));
+        assertEquals(104000, jdbcTemplate.queryForObject("select count(distinct id) from transactions t " +
+                "where t.account_id in (select a.id from accounts a join users u on u.id = a.user_id " +
+                "where u.email like '%@exemplo.com.br')", Long.class));
+
+        // 3. Extrato de um período no meio do histórico parte do snapshot e fecha com o saldo do dia
+        Long accountId = jdbcTemplate.queryForObject("select max(id) from accounts", Long.class);
+        BigDecimal balance = jdbcTemplate.queryForObject("select balance from accounts where id = ?", BigDecimal.class, accountId);
+        StatementDTO lastMonth = statementService.statement(accountId, LocalDate.now().minusDays(30), LocalDate.now());
+        assertEquals(0, balance.compareTo(lastMonth.getClosingBalance()));
+        StatementDTO earlier = statementService.statement(accountId, LocalDate.now().minusDays(60), LocalDate.now().minusDays(31));
+        assertEquals(0, earlier.getClosingBalance().compareTo(lastMonth.getOpeningBalance()));
+
+        // 4. Resumo da carteira igual à soma das contas do usuário
+        Long userId = jdbcTemplate.queryForObject("select user_id from accounts where id = ?", Long.class, accountId);
+        PortfolioSummaryDTO summary = portfolioSummaryService.summary(userId);
+        BigDecimal total = jdbcTemplate.queryForObject("select sum(balance) from accounts where user_id = ?", BigDecimal.class, userId);
+        assertEquals(0, total.compareTo(summary.getTotalBalance()));
+        assertEquals(2, summary.getAccountCount());
+    }
+}
@@ -0,0 +1,141 @@
+package com.fintech.service;
+
+import com.fintech.dto.AccountDTO;
+import com.fintech.dto.AnalyticsDTO;
+import com.fintech.dto.PageDTO;
+import com.fintech.dto.StatementDTO;
+import com.fintech.dto.TransactionDTO;
+import com.fintech.dto.UserDTO;
+import com.fintech.model.Transaction;
+import com.fintech.repository.ArchivedTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Banco próprio: o arquivamento apagaria da tabela quente transações antigas de outros testes
+@SpringBootTest(properties = {
+        "fintech.archive.batch-size=3",
+        "spring.datasource.url=jdbc:h2:mem:archivedb"
+})
+class TransactionArchiverTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2023, 1, 1);
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testArquivamentoPreservaLeiturasDeJanelasAntigas() throws Exception {
+        // 1. Dez lançamentos em janeiro de 2023 (um depósito e o seu estorno entre eles) e dois recentes
+        UserDTO usuario = new UserDTO();
+        usuario.setName("Usuario Arquivo");
+        usuario.setEmail("arquivo@email.com");
+        usuario.setCpf("24682468246");
+        Long userId = userService.create(usuario).getId();
+        AccountDTO conta = new AccountDTO();
+        conta.setUserId(userId);
+        conta.setBalance(new BigDecimal("1000.00"));
+        Long accountId = accountService.create(conta).getId();
+
+        Long estornado = null;
+        for (int dia = 1; dia <= 10; dia++) {
+            Long id = jdbcTemplate.queryForObject("select next value for transactions_seq", Long.class);
+            boolean estorno = dia == 6;
+            jdbcTemplate.update("insert into transactions (id, account_id, amount, transaction_type, description, " +
+                            "transaction_date, reversed_transaction_id) values (?, ?, ?, ?, ?, ?, ?)",
+                    id, accountId, new BigDecimal(dia + ".00"),
+                    estorno ? "REVERSAL_DEBIT" : dia % 2 == 0 ? "WITHDRAWAL" : "DEPOSIT",
+                    "Histórico " + dia, Timestamp.valueOf(INICIO.plusDays(dia - 1).atTime(12, 0)),
+                    estorno ? estornado : null);
+            if (dia == 5) {
+                estornado = id;
+            }
+        }
+        transactionService.create(deposito(accountId, "20.00"));
+        transactionService.create(deposito(accountId, "30.00"));
+
+        List<Long> paginasAntes = todasAsPaginas(accountId);
+        StatementDTO extratoAntes = statementService.statement(accountId, INICIO, INICIO.plusDays(30));
+        String exportacaoAntes = exportar(accountId);
+        AnalyticsDTO mensalAntes = analyticsService.analytics(userId, INICIO, INICIO.plusDays(30), "month");
+
+        // 2. Em lotes de 3: o depósito estornado só sai depois do estorno
+        assertEquals(10, transactionArchiver.archive(LocalDate.of(2024, 1, 1).atStartOfDay()));
+        assertEquals(0, transactionArchiver.archive(LocalDate.of(2024, 1, 1).atStartOfDay()));
+        assertEquals(10, archivedTransactionRepository.count());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from transactions where account_id = ?", Integer.class, accountId));
+
+        // 3. Paginação, extrato, exportação e analytics enxergam o arquivo como antes
+        assertEquals(paginasAntes, todasAsPaginas(accountId));
+        StatementDTO extratoDepois = statementService.statement(accountId, INICIO, INICIO.plusDays(30));
+        assertEquals(extratoAntes.getTransactions(), extratoDepois.getTransactions());
+        assertEquals(0, extratoAntes.getOpeningBalance().compareTo(extratoDepois.getOpeningBalance()));
+        assertEquals(0, extratoAntes.getClosingBalance().compareTo(extratoDepois.getClosingBalance()));
+        assertEquals(exportacaoAntes, exportar(accountId));
+        assertEquals(mensalAntes.getBuckets(), analyticsService.analytics(userId, INICIO, INICIO.plusDays(30), "month")
+                .getBuckets());
+
+        assertEquals("Histórico 5", transactionService.findById(estornado).getDescription());
+        Long arquivado = estornado;
+        assertThrows(RuntimeException.class, () -> transactionService.reverse(arquivado));
+    }
+
+    private List<Long> todasAsPaginas(Long accountId) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageDTO<TransactionDTO> pagina = transactionService.findByAccountId(accountId, cursor, 4);
+            pagina.getContent().forEach(transacao -> ids.add(transacao.getId()));
+            cursor = pagina.getNextCursor();
+        } while (cursor != null);
+        assertEquals(12, ids.size());
+        return ids;
+    }
+
+    private String exportar(Long accountId) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        transactionService.exportByAccountId(accountId, TransactionService.ExportFormat.CSV, saida);
+        return saida.toString();
+    }
+
+    private TransactionDTO deposito(Long accountId, String valor) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAccountId(accountId);
+        transactionDTO.setAmount(new BigDecimal(valor));
+        transactionDTO.setTransactionType(Transaction.TransactionType.DEPOSIT);
+        return transactionDTO;
+    }
+}
@@ -0,0 +1,137 @@
+package com.fintech.service;
+
+import com.fintech.dto.TransferDTO;
+import com.fintech.model.Account;
+import com.fintech.model.Transaction;
+import com.fintech.repository.AccountRepository;
+import com.fintech.repository.TransactionRepository;
+import com.fintech.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TransferStressTest {
+
+    private static final int CONTAS = 10;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void testTransferenciasConcorrentesConservamOTotal() throws Exception {
+        transferirConcorrente(16, 100);
+    }
+
+    // Vazão com a carga completa, fora do mvn test: mvn -P stress test -Dtest=TransferStressTest
+    @Test
+    @Tag("stress")
+    void testVazaoDeTransferenciasConcorrentes() throws Exception {
+        int transferencias = 2_000;
+        int threads = 16;
+        System.out.printf("%n%d transferências em %d threads: %.0f transferências/s%n",
+                transferencias, threads, transferirConcorrente(threads, transferencias));
+    }
+
+    // Pares aleatórios entre poucas contas: A→B e B→A acontecem ao mesmo tempo o tempo todo. Devolve
+    // transferências/s
+    private double transferirConcorrente(int threads, int transferencias) throws Exception {
+        List<Long> contas = new ArrayList<>();
+        for (int i = 0; i < CONTAS; i++) {
+            contas.add(novaConta());
+        }
+        LocalDateTime inicio = LocalDateTime.now().minusSeconds(1);
+
+        AtomicInteger proxima = new AtomicInteger();
+        AtomicInteger aprovadas = new AtomicInteger();
+        AtomicInteger recusadas = new AtomicInteger();
+        AtomicInteger falhas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (proxima.getAndIncrement() < transferencias) {
+                    int origem = random.nextInt(CONTAS);
+                    int destino = (origem + 1 + random.nextInt(CONTAS - 1)) % CONTAS;
+                    TransferDTO transferDTO = new TransferDTO(contas.get(origem), contas.get(destino),
+                            BigDecimal.valueOf(random.nextInt(1, 30_000), 2), "Estresse");
+                    try {
+                        transactionService.transfer(transferDTO);
+                        aprovadas.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        recusadas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        falhas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long comeco = System.nanoTime();
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(5, TimeUnit.MINUTES);
+        }
+        long duracao = System.nanoTime() - comeco;
+        executor.shutdown();
+
+        assertEquals(0, falhas.get());
+        assertEquals(transferencias, aprovadas.get() + recusadas.get());
+
+        // Nenhum dinheiro criado ou destruído, nenhum saldo negativo, e cada saldo bate com o extrato
+        BigDecimal total = BigDecimal.ZERO;
+        for (Long contaId : contas) {
+            BigDecimal saldo = accountRepository.findBalanceById(contaId).orElseThrow();
+            assertTrue(saldo.signum() >= 0, "Saldo negativo na conta " + contaId);
+            BigDecimal movimentado = transactionRepository.sumSignedAmountSince(contaId, inicio,
+                    EnumSet.of(Transaction.TransactionType.DEPOSIT, Transaction.TransactionType.TRANSFER_IN));
+            assertEquals(0, SALDO_INICIAL.add(movimentado).compareTo(saldo), "Extrato diverge na conta " + contaId);
+            total = total.add(saldo);
+        }
+        assertEquals(0, SALDO_INICIAL.multiply(BigDecimal.valueOf(CONTAS)).compareTo(total));
+        return transferencias / (duracao / 1_000_000_000.0);
+    }
+
+    private Long novaConta() {
+        Account account = new Account();
+        account.setAccountNumber(accountNumberAllocator.next());
+        account.setUser(userRepository.findById(2L).orElseThrow());
+        account.setBalance(SALDO_INICIAL);
+        return accountRepository.save(account).getId();
+    }
+}
@@ -0,0 +1,67 @@
+package com.fintech.service;
+
+import com.fintech.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UniquenessGuardTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UniquenessGuard uniquenessGuard;
+
+    @Test
+    void testIndiceAquecidoComDadosIniciais() {
+        // Usuários do DataLoader entram no índice na subida da aplicação
+        assertTrue(uniquenessGuard.mightContainEmail("joao.silva@email.com"));
+        assertTrue(uniquenessGuard.mightContainEmail(" JOAO.SILVA@email.com "));
+        assertTrue(uniquenessGuard.mightContainCpf("987.654.321-00"));
+        assertFalse(uniquenessGuard.mightContainEmail("nunca.cadastrado@email.com"));
+    }
+
+    @Test
+    void testUnicidadeEmailECpf() {
+        UserDTO criado = userService.create(novoUsuario("Unicidade Um", "unicidade.um@email.com", "55566677788"));
+        assertTrue(uniquenessGuard.mightContainEmail("unicidade.um@email.com"));
+        assertTrue(uniquenessGuard.mightContainCpf("55566677788"));
+
+        RuntimeException emailDuplicado = assertThrows(RuntimeException.class, () ->
+                userService.create(novoUsuario("Unicidade Dois", "unicidade.um@email.com", "55566677799")));
+        assertEquals("Email já cadastrado: unicidade.um@email.com", emailDuplicado.getMessage());
+
+        RuntimeException cpfDuplicado = assertThrows(RuntimeException.class, () ->
+                userService.create(novoUsuario("Unicidade Dois", "unicidade.dois@email.com", "55566677788")));
+        assertEquals("CPF já cadastrado: 55566677788", cpfDuplicado.getMessage());
+
+        // Atualizar mantendo as próprias chaves não conflita consigo mesmo
+        UserDTO outro = userService.create(novoUsuario("Unicidade Dois", "unicidade.dois@email.com", "55566677799"));
+        userService.update(outro.getId(), novoUsuario("Unicidade Dois Atualizado", "unicidade.dois@email.com", "55566677799"), null);
+        assertThrows(RuntimeException.class, () ->
+                userService.update(outro.getId(), novoUsuario("Unicidade Dois", "unicidade.dois@email.com", "55566677788"), null));
+
+        // Após a exclusão as chaves ficam livres, mesmo que o índice ainda as aponte como possíveis
+        userService.delete(criado.getId());
+        UserDTO recriado = userService.create(novoUsuario("Unicidade Um", "unicidade.um@email.com", "55566677788"));
+        assertEquals("unicidade.um@email.com", recriado.getEmail());
+
+        userService.delete(recriado.getId());
+        userService.delete(outro.getId());
+    }
+
+    private UserDTO novoUsuario(String name, String email, String cpf) {
+        UserDTO userDTO = new UserDTO();
+        userDTO.setName(name);
+        userDTO.setEmail(email);
+        userDTO.setCpf(cpf);
+        return userDTO;
+    }
+}